@@ -26,7 +26,11 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Operational metrics name users and job progress
+                        .requestMatchers("/api/auth/hashing/metrics", "/api/profile/propagation/metrics",
+                                "/api/media/thumbnails/metrics").hasRole("ADMIN")
                         .requestMatchers("/api/auth/**").permitAll()
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/profile/**").authenticated()
                         .anyRequest().authenticated()
                 )
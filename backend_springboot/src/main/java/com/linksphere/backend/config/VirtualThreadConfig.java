@@ -0,0 +1,39 @@
+package com.linksphere.backend.config;
+
+import com.linksphere.backend.util.ConcurrencyLimitedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings that only apply when requests run on virtual threads
+ * (spring.threads.virtual.enabled=true on Java 21+, see the java21 Maven
+ * profile). Spring Boot then serves Tomcat requests and its task executors
+ * on virtual threads; on Java 17 the property has no effect and neither
+ * does this class.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    // Request concurrency is no longer bounded by a thread pool, so bound database access instead
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    logger.info("Limiting concurrent database access to the pool size of {}", hikari.getMaximumPoolSize());
+                    return new ConcurrencyLimitedDataSource(hikari, hikari.getMaximumPoolSize(), hikari.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -3,17 +3,22 @@ package com.linksphere.backend.controllers;
 import com.linksphere.backend.dto.LoginRequest;
 import com.linksphere.backend.dto.RegisterRequest;
 import com.linksphere.backend.models.User;
+import com.linksphere.backend.services.PasswordHashingService;
 import com.linksphere.backend.services.UserService;
 import com.linksphere.backend.util.JwtUtil;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -21,33 +26,63 @@ public class AuthController {
 
     private final UserService userService;
     private final JwtUtil jwtUtil;
-    private final AuthenticationManager authenticationManager;
+    private final PasswordHashingService passwordHashingService;
+    private final Executor requestExecutor;
 
-    public AuthController(UserService userService, JwtUtil jwtUtil, AuthenticationManager authenticationManager) {
+    public AuthController(UserService userService, JwtUtil jwtUtil, PasswordHashingService passwordHashingService,
+                          @Qualifier("applicationTaskExecutor") Executor requestExecutor) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
-        this.authenticationManager = authenticationManager;
+        this.passwordHashingService = passwordHashingService;
+        this.requestExecutor = requestExecutor;
     }
 
+    // Register and login return futures so no request thread waits on BCrypt; only the password
+    // check runs on the hashing pool, the lookups and token signing after it do not
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
-        userService.registerUser(request);
-        return ResponseEntity.ok("User registered successfully");
+    public CompletableFuture<ResponseEntity<?>> register(@Valid @RequestBody RegisterRequest request) {
+        return userService.registerUser(request)
+                .<ResponseEntity<?>>thenApply(ignored -> ResponseEntity.ok("User registered successfully"))
+                .exceptionally(AuthController::tooManyRequestsOrRethrow);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
-        
-        User user = userService.findByEmail(request.getEmail());
-        String jwt = jwtUtil.generateToken(request.getEmail(), user.getRole());
-        
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest request) {
+        return CompletableFuture.supplyAsync(() -> userService.findForLogin(request.getEmail()), requestExecutor)
+                .thenCompose(user -> passwordHashingService.matches(request.getPassword(), user != null ? user.getPassword() : null)
+                        .<ResponseEntity<?>>thenApplyAsync(matches -> {
+                            if (!matches) {
+                                // The same answer for an unknown email and a wrong password
+                                throw new BadCredentialsException("Bad credentials");
+                            }
+                            return ResponseEntity.ok(tokenResponse(user));
+                        }, requestExecutor))
+                .exceptionally(AuthController::tooManyRequestsOrRethrow);
+    }
+
+    private Map<String, String> tokenResponse(User user) {
+        String jwt = jwtUtil.generateToken(user.getEmail(), user.getRole());
+
         Map<String, String> response = new HashMap<>();
         response.put("token", jwt);
         response.put("username", user.getUsername());
-        
-        return ResponseEntity.ok(response);
+        return response;
+    }
+
+    @GetMapping("/hashing/metrics")
+    public ResponseEntity<Map<String, Object>> getHashingMetrics() {
+        return ResponseEntity.ok(passwordHashingService.getMetrics());
+    }
+
+    private static ResponseEntity<?> tooManyRequestsOrRethrow(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof PasswordHashingService.OverloadedException overloaded) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(overloaded.getRetryAfterSeconds()))
+                    .body(overloaded.getMessage());
+        }
+        // Anything else (bad credentials included) is handled exactly as when it was thrown synchronously
+        throw e instanceof CompletionException completion ? completion : new CompletionException(cause);
     }
 
     @PostMapping("/forgot-password")
@@ -0,0 +1,59 @@
+package com.linksphere.backend.controllers;
+
+import com.linksphere.backend.dto.ChunkedUploadRequest;
+import com.linksphere.backend.models.UploadSession;
+import com.linksphere.backend.models.UserPrincipal;
+import com.linksphere.backend.services.ChunkedUploadService;
+import com.linksphere.backend.services.ThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/media")
+public class MediaController {
+    private final ThumbnailService thumbnailService;
+    private final ChunkedUploadService chunkedUploadService;
+
+    public MediaController(ThumbnailService thumbnailService, ChunkedUploadService chunkedUploadService) {
+        this.thumbnailService = thumbnailService;
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    @GetMapping("/thumbnails/metrics")
+    public ResponseEntity<Map<String, Object>> getThumbnailMetrics() {
+        return ResponseEntity.ok(thumbnailService.getMetrics());
+    }
+
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSession> startUpload(@Valid @RequestBody ChunkedUploadRequest request) {
+        UserPrincipal principal = UserPrincipal.current();
+        return ResponseEntity.ok(chunkedUploadService.initiate(principal.getId(), request));
+    }
+
+    // The chunk is the raw request body so it can be streamed to disk without buffering
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSession> uploadChunk(@PathVariable String uploadId,
+                                                     @RequestParam long offset,
+                                                     @RequestHeader(value = "X-Chunk-SHA256", required = false) String chunkSha256,
+                                                     HttpServletRequest request) throws IOException {
+        UserPrincipal principal = UserPrincipal.current();
+        return ResponseEntity.ok(chunkedUploadService.writeChunk(principal.getId(), uploadId, offset, request.getInputStream(), chunkSha256));
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSession> getUpload(@PathVariable String uploadId) {
+        UserPrincipal principal = UserPrincipal.current();
+        return ResponseEntity.ok(chunkedUploadService.getStatus(principal.getId(), uploadId));
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<UploadSession> completeUpload(@PathVariable String uploadId) {
+        UserPrincipal principal = UserPrincipal.current();
+        return ResponseEntity.ok(chunkedUploadService.complete(principal.getId(), uploadId));
+    }
+}
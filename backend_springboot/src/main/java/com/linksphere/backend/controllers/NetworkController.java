@@ -1,13 +1,19 @@
 package com.linksphere.backend.controllers;
 
+import com.linksphere.backend.dto.BulkConnectRequest;
+import com.linksphere.backend.dto.BulkConnectResult;
+import com.linksphere.backend.dto.MutualConnections;
+import com.linksphere.backend.dto.PageResponse;
 import com.linksphere.backend.models.Connection;
+import com.linksphere.backend.models.UserPrincipal;
 import com.linksphere.backend.services.NetworkService;
+import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/network")
@@ -19,34 +25,70 @@ public class NetworkController {
     }
 
     @GetMapping("/connections")
-    public ResponseEntity<List<Connection>> getConnections() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        List<Connection> connections = networkService.getConnections(email);
+    public ResponseEntity<PageResponse<Connection>> getConnections(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer limit) {
+        UserPrincipal principal = UserPrincipal.current();
+        PageResponse<Connection> connections = networkService.getConnections(principal.getId(), cursor, limit);
         return ResponseEntity.ok(connections);
     }
 
+    @GetMapping("/connections/count")
+    public ResponseEntity<Map<String, Integer>> getConnectionCount(@RequestParam(required = false) Long userId) {
+        UserPrincipal principal = UserPrincipal.current();
+        int count = networkService.getConnectionCount(userId != null ? userId : principal.getId());
+        return ResponseEntity.ok(Map.of("count", count));
+    }
+
     @GetMapping("/suggestions")
-    public ResponseEntity<List<Connection>> getSuggestions() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        List<Connection> suggestions = networkService.getSuggestions(email);
+    public ResponseEntity<List<Connection>> getSuggestions(@RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(required = false) Integer size) {
+        UserPrincipal principal = UserPrincipal.current();
+        List<Connection> suggestions = networkService.getSuggestions(principal.getId(), page, size);
         return ResponseEntity.ok(suggestions);
     }
 
+    @GetMapping("/degree/{userId}")
+    public ResponseEntity<Map<String, Object>> getDegree(@PathVariable Long userId) {
+        UserPrincipal principal = UserPrincipal.current();
+        Map<Long, Integer> degrees = networkService.getConnectionDegrees(principal.getId(), List.of(userId));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("userId", userId);
+        body.put("degree", degrees.get(userId));
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping("/degrees")
+    public ResponseEntity<Map<Long, Integer>> getDegrees(@RequestParam List<Long> userIds) {
+        UserPrincipal principal = UserPrincipal.current();
+        Map<Long, Integer> degrees = networkService.getConnectionDegrees(principal.getId(), userIds);
+        return ResponseEntity.ok(degrees);
+    }
+
+    @GetMapping("/mutual")
+    public ResponseEntity<Map<Long, MutualConnections>> getMutualConnections(@RequestParam List<Long> userIds) {
+        UserPrincipal principal = UserPrincipal.current();
+        Map<Long, MutualConnections> mutuals = networkService.getMutualConnections(principal.getId(), userIds);
+        return ResponseEntity.ok(mutuals);
+    }
+
     @PostMapping("/connect/{userId}")
     public ResponseEntity<Void> connect(@PathVariable Long userId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        networkService.connect(email, userId);
+        UserPrincipal principal = UserPrincipal.current();
+        networkService.connect(principal.getId(), userId);
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/connect/bulk")
+    public ResponseEntity<List<BulkConnectResult>> bulkConnect(@Valid @RequestBody BulkConnectRequest request) {
+        UserPrincipal principal = UserPrincipal.current();
+        List<BulkConnectResult> results = networkService.bulkConnect(principal.getId(), request.getUserIds());
+        return ResponseEntity.ok(results);
+    }
+
     @DeleteMapping("/disconnect/{userId}")
     public ResponseEntity<Void> disconnect(@PathVariable Long userId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        networkService.disconnect(email, userId);
+        UserPrincipal principal = UserPrincipal.current();
+        networkService.disconnect(principal.getId(), userId);
         return ResponseEntity.ok().build();
     }
 } 
\ No newline at end of file
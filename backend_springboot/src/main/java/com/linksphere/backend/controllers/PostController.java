@@ -1,16 +1,20 @@
 package com.linksphere.backend.controllers;
 
 import com.linksphere.backend.dto.CommentRequest;
+import com.linksphere.backend.dto.PageResponse;
 import com.linksphere.backend.dto.PostRequest;
 import com.linksphere.backend.models.Comment;
 import com.linksphere.backend.models.Post;
+import com.linksphere.backend.models.UserPrincipal;
 import com.linksphere.backend.services.PostService;
+import com.linksphere.backend.services.TimelineService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -19,9 +23,11 @@ import java.util.Map;
 public class PostController {
 
     private final PostService postService;
+    private final TimelineService timelineService;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, TimelineService timelineService) {
         this.postService = postService;
+        this.timelineService = timelineService;
     }
 
     @PostMapping("/upload")
@@ -32,25 +38,22 @@ public class PostController {
 
     @PostMapping
     public ResponseEntity<Post> createPost(@RequestBody PostRequest postRequest) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Post createdPost = postService.createPost(email, postRequest);
+        UserPrincipal principal = UserPrincipal.current();
+        Post createdPost = postService.createPost(principal.getId(), principal.getUsername(), postRequest);
         return ResponseEntity.ok(createdPost);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Post> updatePost(@PathVariable Long id, @RequestBody PostRequest postRequest) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Post updatedPost = postService.updatePost(id, email, postRequest);
+        UserPrincipal principal = UserPrincipal.current();
+        Post updatedPost = postService.updatePost(id, principal.getId(), postRequest);
         return ResponseEntity.ok(updatedPost);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePost(@PathVariable Long id) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        postService.deletePost(id, email);
+        UserPrincipal principal = UserPrincipal.current();
+        postService.deletePost(id, principal.getId());
         return ResponseEntity.noContent().build();
     }
 
@@ -60,63 +63,85 @@ public class PostController {
         return ResponseEntity.ok(posts);
     }
 
+    @GetMapping("/feed")
+    public void getFeed(@RequestParam(required = false) String cursor,
+                        @RequestParam(required = false) Integer limit,
+                        HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        postService.streamFeed(cursor, limit, response.getOutputStream());
+    }
+
+    @GetMapping("/timeline")
+    public ResponseEntity<PageResponse<Post>> getTimeline(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limit) {
+        UserPrincipal principal = UserPrincipal.current();
+        PageResponse<Post> timeline = timelineService.getTimeline(principal.getId(), cursor, limit);
+        return ResponseEntity.ok(timeline);
+    }
+
     @PostMapping("/{id}/like")
     public ResponseEntity<Void> likePost(@PathVariable Long id) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        postService.likePost(id, email);
+        UserPrincipal principal = UserPrincipal.current();
+        postService.likePost(id, principal.getId());
         return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/{id}/like")
     public ResponseEntity<Void> unlikePost(@PathVariable Long id) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        postService.unlikePost(id, email);
+        UserPrincipal principal = UserPrincipal.current();
+        postService.unlikePost(id, principal.getId());
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/{id}/save")
     public ResponseEntity<Void> savePost(@PathVariable Long id) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        postService.savePost(id, email);
+        UserPrincipal principal = UserPrincipal.current();
+        postService.savePost(id, principal.getId());
         return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/{id}/save")
     public ResponseEntity<Void> unsavePost(@PathVariable Long id) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        postService.unsavePost(id, email);
+        UserPrincipal principal = UserPrincipal.current();
+        postService.unsavePost(id, principal.getId());
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/{id}/comments")
-    public ResponseEntity<List<Comment>> getComments(@PathVariable Long id) {
-        List<Comment> comments = postService.getComments(id);
+    public ResponseEntity<PageResponse<Comment>> getComments(@PathVariable Long id,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer limit) {
+        PageResponse<Comment> comments = postService.getComments(id, cursor, limit);
+        return ResponseEntity.ok(comments);
+    }
+
+    @GetMapping("/comments")
+    public ResponseEntity<Map<Long, PageResponse<Comment>>> getFirstComments(@RequestParam List<Long> postIds,
+                                                                             @RequestParam(required = false) Integer limit) {
+        Map<Long, PageResponse<Comment>> comments = postService.getFirstComments(postIds, limit);
         return ResponseEntity.ok(comments);
     }
 
     @PostMapping("/{id}/comments")
     public ResponseEntity<Comment> addComment(@PathVariable Long id, @RequestBody CommentRequest commentRequest) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Comment comment = postService.addComment(id, email, commentRequest.getContent());
+        UserPrincipal principal = UserPrincipal.current();
+        Comment comment = postService.addComment(id, principal.getId(), principal.getUsername(), commentRequest.getContent());
         return ResponseEntity.ok(comment);
     }
 
     @DeleteMapping("/{postId}/comments/{commentId}")
     public ResponseEntity<Void> deleteComment(@PathVariable Long postId, @PathVariable Long commentId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        postService.deleteComment(postId, commentId, email);
+        UserPrincipal principal = UserPrincipal.current();
+        postService.deleteComment(postId, commentId, principal.getId());
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Post>> searchPosts(@RequestParam String query) {
-        List<Post> posts = postService.searchPosts(query);
+    public ResponseEntity<List<Post>> searchPosts(@RequestParam String query,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(required = false) Integer size) {
+        List<Post> posts = postService.searchPosts(query, page, size);
         return ResponseEntity.ok(posts);
     }
 }
\ No newline at end of file
@@ -1,23 +1,42 @@
 package com.linksphere.backend.controllers;
 
+import com.linksphere.backend.dto.ProfileCard;
 import com.linksphere.backend.dto.ProfileRequest;
 import com.linksphere.backend.models.Profile;
+import com.linksphere.backend.models.UserPrincipal;
+import com.linksphere.backend.services.AuthorPropagationService;
+import com.linksphere.backend.services.ProfileCardService;
 import com.linksphere.backend.services.ProfileService;
-import com.linksphere.backend.services.UserService;
 import jakarta.validation.Valid;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The profile's ETag is derived from its version column, so a refresh with
+ * If-None-Match costs one indexed lookup and an empty 304, and PUT/PATCH
+ * with If-Match fail with 412 instead of overwriting a concurrent change.
+ */
 @RestController
 @RequestMapping("/api/profile")
 public class ProfileController {
     private final ProfileService profileService;
-    private final UserService userService;
+    private final ProfileCardService profileCardService;
+    private final AuthorPropagationService authorPropagationService;
 
-    public ProfileController(ProfileService profileService, UserService userService) {
+    public ProfileController(ProfileService profileService, ProfileCardService profileCardService,
+                             AuthorPropagationService authorPropagationService) {
         this.profileService = profileService;
-        this.userService = userService;
+        this.profileCardService = profileCardService;
+        this.authorPropagationService = authorPropagationService;
     }
 
     @PostMapping
@@ -28,25 +47,124 @@ public class ProfileController {
     }
 
     @PutMapping
-    public ResponseEntity<?> updateProfile(@Valid @RequestBody ProfileRequest request) {
+    public ResponseEntity<?> updateProfile(@Valid @RequestBody ProfileRequest request,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Long userId = getCurrentUserId();
-        profileService.updateProfile(userId, request);
-        return ResponseEntity.ok("Profile updated successfully");
+        try {
+            Profile profile = profileService.updateProfile(userId, request, expectedVersion(userId, ifMatch));
+            return ResponseEntity.ok().eTag(etag(userId, profile.getVersion())).body("Profile updated successfully");
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        }
+    }
+
+    @PatchMapping
+    public ResponseEntity<?> patchProfile(@Valid @RequestBody ProfileRequest request,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long userId = getCurrentUserId();
+        try {
+            Profile profile = profileService.patchProfile(userId, request, expectedVersion(userId, ifMatch));
+            return ResponseEntity.ok().eTag(etag(userId, profile.getVersion())).body(profile);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        }
     }
 
     @GetMapping
-    public ResponseEntity<Profile> getProfile() {
+    public ResponseEntity<Profile> getProfile(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Long userId = getCurrentUserId();
+        if (ifNoneMatch != null) {
+            Integer version = profileService.getProfileVersion(userId);
+            if (version != null && matchesAny(ifNoneMatch, etag(userId, version))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag(userId, version))
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .build();
+            }
+        }
         Profile profile = profileService.getProfile(userId);
-        return ResponseEntity.ok(profile);
+        if (profile == null) {
+            return ResponseEntity.ok(null);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag(userId, profile.getVersion()))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(profile);
+    }
+
+    @GetMapping("/cards")
+    public ResponseEntity<List<ProfileCard>> getProfileCards(@RequestParam List<Long> userIds) {
+        return ResponseEntity.ok(profileCardService.getCardsInOrder(userIds));
+    }
+
+    @GetMapping("/propagation/metrics")
+    public ResponseEntity<Map<String, Object>> getPropagationMetrics() {
+        return ResponseEntity.ok(authorPropagationService.getMetrics());
     }
 
     private Long getCurrentUserId() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        var user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found for email: " + email);
+        return UserPrincipal.current().getId();
+    }
+
+    // Per user as well as per version: the URL is the same for every user
+    private static String etag(Long userId, int version) {
+        return "\"" + userId + "-" + version + "\"";
+    }
+
+    // null (unconditional) without If-Match; a tag for another user or a stale one can never match.
+    // With several tags the current version is used if it is one of them, and the conditional
+    // update still fails if another request changes the profile in between
+    private Integer expectedVersion(Long userId, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        Set<Integer> versions = new HashSet<>();
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            Integer version = versionOf(userId, tag);
+            if (version != null) {
+                versions.add(version);
+            }
+        }
+        if (versions.size() == 1) {
+            return versions.iterator().next();
+        }
+        if (!versions.isEmpty()) {
+            Integer current = profileService.getProfileVersion(userId);
+            if (current != null && versions.contains(current)) {
+                return current;
+            }
+        }
+        // A version no row has
+        return -1;
+    }
+
+    private static Integer versionOf(Long userId, String tag) {
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        String prefix = userId + "-";
+        if (tag.startsWith(prefix)) {
+            try {
+                return Integer.parseInt(tag.substring(prefix.length()));
+            } catch (NumberFormatException e) {
+                // Not one of ours
+            }
+        }
+        return null;
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
         }
-        return user.getId();
+        return false;
     }
-}
\ No newline at end of file
+}
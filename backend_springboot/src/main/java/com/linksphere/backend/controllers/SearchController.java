@@ -0,0 +1,40 @@
+package com.linksphere.backend.controllers;
+
+import com.linksphere.backend.dto.PersonSearchResult;
+import com.linksphere.backend.dto.UsernameMatch;
+import com.linksphere.backend.models.UserPrincipal;
+import com.linksphere.backend.services.PeopleSearchService;
+import com.linksphere.backend.services.UsernameTypeaheadService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+    private final PeopleSearchService peopleSearchService;
+    private final UsernameTypeaheadService usernameTypeaheadService;
+
+    public SearchController(PeopleSearchService peopleSearchService, UsernameTypeaheadService usernameTypeaheadService) {
+        this.peopleSearchService = peopleSearchService;
+        this.usernameTypeaheadService = usernameTypeaheadService;
+    }
+
+    @GetMapping("/users")
+    public ResponseEntity<List<PersonSearchResult>> searchUsers(@RequestParam String query,
+                                                                @RequestParam(defaultValue = "0") int page,
+                                                                @RequestParam(required = false) Integer size) {
+        UserPrincipal principal = UserPrincipal.current();
+        List<PersonSearchResult> results = peopleSearchService.search(principal.getId(), query, page, size);
+        return ResponseEntity.ok(results);
+    }
+
+    @GetMapping("/users/typeahead")
+    public ResponseEntity<List<UsernameMatch>> typeahead(@RequestParam String prefix,
+                                                         @RequestParam(required = false) Integer limit) {
+        UserPrincipal principal = UserPrincipal.current();
+        List<UsernameMatch> matches = usernameTypeaheadService.lookup(principal.getId(), prefix, limit);
+        return ResponseEntity.ok(matches);
+    }
+}
@@ -0,0 +1,162 @@
+package com.linksphere.backend.controllers;
+
+import com.linksphere.backend.services.MediaStorageService;
+import com.linksphere.backend.services.MediaStorageService.StoredFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves uploaded media with strong ETags, conditional GETs, single byte
+ * ranges (video seeking) and long-lived caching for files that never change.
+ *
+ * On Tomcat the body is handed to the connector's sendfile support, so bytes
+ * go from the page cache to the socket without passing through the heap;
+ * elsewhere it falls back to FileChannel.transferTo.
+ */
+@RestController
+@RequestMapping("/uploads")
+public class UploadsController {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String IMMUTABLE = "private, max-age=31536000, immutable";
+    private static final String REVALIDATE = "private, no-cache";
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private final MediaStorageService mediaStorageService;
+
+    public UploadsController(MediaStorageService mediaStorageService) {
+        this.mediaStorageService = mediaStorageService;
+    }
+
+    @RequestMapping(value = "/{fileName:.+}", method = { RequestMethod.GET, RequestMethod.HEAD })
+    public void serve(@PathVariable String fileName, @RequestParam(required = false) String size,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredFile file = mediaStorageService.resolve(fileName, size);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, file.getEtag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, file.getLastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, file.isImmutable() ? IMMUTABLE : REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), file.getEtag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        MediaType contentType = MediaTypeFactory.getMediaType(file.getPath().getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        response.setContentType(contentType.toString());
+
+        long start = 0;
+        long end = file.getSize() - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // A stale If-Range means the client's partial copy is outdated, so send the whole file
+        if (range != null && (ifRange == null || ifRange.equals(file.getEtag()))) {
+            long[] bounds = parseRange(range, file.getSize());
+            if (bounds == UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.getSize());
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + file.getSize());
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(Math.max(length, 0));
+        if ("HEAD".equals(request.getMethod()) || length <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file itself after this method returns
+            request.setAttribute(SENDFILE_FILENAME, file.getPath().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.getPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a single "bytes=" range. Returns {start, end} inclusive, null to
+     * ignore the header and send the full body (unknown unit, multiple ranges,
+     * malformed), or UNSATISFIABLE.
+     */
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (spec.contains(",") || dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new long[] { Math.max(0, size - suffix), size - 1 };
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start >= size || start > end) {
+                return UNSATISFIABLE;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.linksphere.backend.controllers;
+
+import com.linksphere.backend.models.UserImportJob;
+import com.linksphere.backend.models.UserPrincipal;
+import com.linksphere.backend.services.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/admin/users/import")
+public class UserImportController {
+    private final UserImportService userImportService;
+
+    public UserImportController(UserImportService userImportService) {
+        this.userImportService = userImportService;
+    }
+
+    // The file is the raw request body so it can be streamed to disk without buffering
+    @PostMapping
+    public ResponseEntity<UserImportJob> startImport(@RequestParam String format, HttpServletRequest request) throws IOException {
+        UserPrincipal principal = UserPrincipal.current();
+        return ResponseEntity.ok(userImportService.createJob(principal.getId(), format, request.getInputStream()));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<UserImportJob> getImport(@PathVariable String jobId) {
+        return ResponseEntity.ok(userImportService.getJob(jobId));
+    }
+
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<UserImportJob> resumeImport(@PathVariable String jobId) {
+        return ResponseEntity.ok(userImportService.resume(jobId));
+    }
+}
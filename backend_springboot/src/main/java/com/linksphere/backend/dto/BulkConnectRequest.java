@@ -0,0 +1,23 @@
+package com.linksphere.backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class BulkConnectRequest {
+    @NotEmpty(message = "At least one user id is required")
+    private List<Long> userIds;
+
+    // Default constructor
+    public BulkConnectRequest() {
+    }
+
+    // Getters and Setters
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+}
@@ -0,0 +1,41 @@
+package com.linksphere.backend.dto;
+
+public class BulkConnectResult {
+    public enum Status {
+        CONNECTED,
+        ALREADY_CONNECTED,
+        USER_NOT_FOUND,
+        SELF,
+        DUPLICATE
+    }
+
+    private Long userId;
+    private Status status;
+
+    // Default constructor
+    public BulkConnectResult() {
+    }
+
+    // Parameterized constructor
+    public BulkConnectResult(Long userId, Status status) {
+        this.userId = userId;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+}
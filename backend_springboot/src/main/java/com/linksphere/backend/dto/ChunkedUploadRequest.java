@@ -0,0 +1,26 @@
+package com.linksphere.backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public class ChunkedUploadRequest {
+    @NotBlank(message = "File name is required")
+    @Size(max = 255, message = "File name must be less than 255 characters")
+    private String fileName;
+
+    @Positive(message = "Size must be greater than zero")
+    private long sizeBytes;
+
+    @Pattern(regexp = "[0-9a-f]{64}", message = "sha256 must be 64 lowercase hex characters")
+    private String sha256; // Optional, verified when the upload is completed
+
+    // Getters and Setters
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+}
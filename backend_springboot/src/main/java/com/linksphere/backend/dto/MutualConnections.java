@@ -0,0 +1,35 @@
+package com.linksphere.backend.dto;
+
+import java.util.List;
+
+public class MutualConnections {
+    private int count;
+    private List<Long> userIds; // The first few mutual connections, for avatars on the card
+
+    // Default constructor
+    public MutualConnections() {
+    }
+
+    // Parameterized constructor
+    public MutualConnections(int count, List<Long> userIds) {
+        this.count = count;
+        this.userIds = userIds;
+    }
+
+    // Getters and Setters
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+}
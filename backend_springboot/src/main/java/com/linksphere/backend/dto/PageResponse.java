@@ -0,0 +1,45 @@
+package com.linksphere.backend.dto;
+
+import java.util.List;
+
+public class PageResponse<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    // Default constructor
+    public PageResponse() {
+    }
+
+    // Parameterized constructor
+    public PageResponse(List<T> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,63 @@
+package com.linksphere.backend.dto;
+
+public class PersonSearchResult {
+    private Long userId;
+    private String username;
+    private String profilePicture;
+    private String headline;
+    private Integer degree; // Connection degree to the viewer, null when further than app.network.max-degree
+
+    // Default constructor
+    public PersonSearchResult() {
+    }
+
+    // Parameterized constructor
+    public PersonSearchResult(Long userId, String username, String profilePicture, String headline, Integer degree) {
+        this.userId = userId;
+        this.username = username;
+        this.profilePicture = profilePicture;
+        this.headline = headline;
+        this.degree = degree;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getProfilePicture() {
+        return profilePicture;
+    }
+
+    public void setProfilePicture(String profilePicture) {
+        this.profilePicture = profilePicture;
+    }
+
+    public String getHeadline() {
+        return headline;
+    }
+
+    public void setHeadline(String headline) {
+        this.headline = headline;
+    }
+
+    public Integer getDegree() {
+        return degree;
+    }
+
+    public void setDegree(Integer degree) {
+        this.degree = degree;
+    }
+}
@@ -0,0 +1,53 @@
+package com.linksphere.backend.dto;
+
+public class ProfileCard {
+    private Long userId;
+    private String username;
+    private String profilePicture;
+    private String headline;
+
+    // Default constructor
+    public ProfileCard() {
+    }
+
+    // Parameterized constructor
+    public ProfileCard(Long userId, String username, String profilePicture, String headline) {
+        this.userId = userId;
+        this.username = username;
+        this.profilePicture = profilePicture;
+        this.headline = headline;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getProfilePicture() {
+        return profilePicture;
+    }
+
+    public void setProfilePicture(String profilePicture) {
+        this.profilePicture = profilePicture;
+    }
+
+    public String getHeadline() {
+        return headline;
+    }
+
+    public void setHeadline(String headline) {
+        this.headline = headline;
+    }
+}
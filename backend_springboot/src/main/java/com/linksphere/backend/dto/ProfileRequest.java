@@ -24,6 +24,9 @@ public class ProfileRequest {
     @Size(max = 1000, message = "Contact Info JSON must be less than 1000 characters")
     private String contactInfo; // JSON string representing a map
 
+    @Size(max = 255, message = "Profile picture URL must be less than 255 characters")
+    private String profilePicture;
+
     // Getters and Setters
     public String getHeadline() { return headline; }
     public void setHeadline(String headline) { this.headline = headline; }
@@ -39,4 +42,6 @@ public class ProfileRequest {
     public void setLocation(String location) { this.location = location; }
     public String getContactInfo() { return contactInfo; }
     public void setContactInfo(String contactInfo) { this.contactInfo = contactInfo; }
+    public String getProfilePicture() { return profilePicture; }
+    public void setProfilePicture(String profilePicture) { this.profilePicture = profilePicture; }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.linksphere.backend.dto;
+
+public class UsernameMatch {
+    private Long userId;
+    private String username;
+    private boolean connected; // A direct connection of the viewer, listed before other matches
+
+    // Default constructor
+    public UsernameMatch() {
+    }
+
+    // Parameterized constructor
+    public UsernameMatch(Long userId, String username, boolean connected) {
+        this.userId = userId;
+        this.username = username;
+        this.connected = connected;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+}
@@ -0,0 +1,37 @@
+package com.linksphere.backend.mapper;
+
+import com.linksphere.backend.models.Comment;
+import org.springframework.jdbc.core.RowMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+public class CommentMapper implements RowMapper<Comment> {
+    private static final Logger logger = LoggerFactory.getLogger(CommentMapper.class);
+
+    @Override
+    public Comment mapRow(ResultSet rs, int rowNum) throws SQLException {
+        try {
+            Comment comment = new Comment();
+            comment.setId(rs.getLong("id"));
+            comment.setPostId(rs.getLong("post_id"));
+            comment.setUserId(rs.getLong("user_id"));
+            comment.setUsername(rs.getString("username"));
+            comment.setContent(rs.getString("content"));
+
+            // Handle timestamps
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            if (createdAt != null) {
+                comment.setCreatedAt(createdAt.toLocalDateTime());
+            }
+
+            return comment;
+        } catch (SQLException e) {
+            logger.error("Error mapping comment row: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+}
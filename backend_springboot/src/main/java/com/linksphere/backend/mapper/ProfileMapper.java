@@ -5,16 +5,43 @@ import org.apache.ibatis.annotations.*;
 
 @Mapper
 public interface ProfileMapper {
-    @Insert("INSERT INTO profiles (user_id, headline, about, skills, education, experience, location, contact_info) " +
-            "VALUES (#{userId}, #{headline}, #{about}, #{skills}, #{education}, #{experience}, #{location}, #{contactInfo})")
+    @Insert("INSERT INTO profiles (user_id, headline, about, skills, education, experience, location, contact_info, profile_picture) " +
+            "VALUES (#{userId}, #{headline}, #{about}, #{skills}, #{education}, #{experience}, #{location}, #{contactInfo}, #{profilePicture})")
     @Options(useGeneratedKeys = true, keyProperty = "id")
     void insert(Profile profile);
 
-    @Update("UPDATE profiles SET headline = #{headline}, about = #{about}, skills = #{skills}, " +
-            "education = #{education}, experience = #{experience}, location = #{location}, contact_info = #{contactInfo}, " +
-            "updated_at = CURRENT_TIMESTAMP WHERE user_id = #{userId}")
-    void update(Profile profile);
+    // expectedVersion may be null for an unconditional update; returns 0 when the version did not match.
+    // profile_picture is left alone: clients that predate it would otherwise clear it on every PUT
+    @Update({"<script>",
+            "UPDATE profiles SET headline = #{profile.headline}, about = #{profile.about}, skills = #{profile.skills}, ",
+            "education = #{profile.education}, experience = #{profile.experience}, location = #{profile.location}, ",
+            "contact_info = #{profile.contactInfo}, version = version + 1, updated_at = CURRENT_TIMESTAMP ",
+            "WHERE user_id = #{profile.userId}",
+            "<if test='expectedVersion != null'> AND version = #{expectedVersion}</if>",
+            "</script>"})
+    int update(@Param("profile") Profile profile, @Param("expectedVersion") Integer expectedVersion);
+
+    // Only the non-null fields of profile are written
+    @Update({"<script>",
+            "UPDATE profiles <set>",
+            "<if test='profile.headline != null'>headline = #{profile.headline},</if>",
+            "<if test='profile.about != null'>about = #{profile.about},</if>",
+            "<if test='profile.skills != null'>skills = #{profile.skills},</if>",
+            "<if test='profile.education != null'>education = #{profile.education},</if>",
+            "<if test='profile.experience != null'>experience = #{profile.experience},</if>",
+            "<if test='profile.location != null'>location = #{profile.location},</if>",
+            "<if test='profile.contactInfo != null'>contact_info = #{profile.contactInfo},</if>",
+            "<if test='profile.profilePicture != null'>profile_picture = #{profile.profilePicture},</if>",
+            "version = version + 1, updated_at = CURRENT_TIMESTAMP",
+            "</set> WHERE user_id = #{profile.userId}",
+            "<if test='expectedVersion != null'> AND version = #{expectedVersion}</if>",
+            "</script>"})
+    int patch(@Param("profile") Profile profile, @Param("expectedVersion") Integer expectedVersion);
 
     @Select("SELECT * FROM profiles WHERE user_id = #{userId}")
     Profile findByUserId(Long userId);
+
+    // Lets a conditional GET answer 304 without loading the JSON columns
+    @Select("SELECT version FROM profiles WHERE user_id = #{userId}")
+    Integer findVersionByUserId(Long userId);
 }
\ No newline at end of file
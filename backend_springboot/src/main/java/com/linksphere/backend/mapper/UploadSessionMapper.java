@@ -0,0 +1,45 @@
+package com.linksphere.backend.mapper;
+
+import com.linksphere.backend.models.UploadSession;
+import org.springframework.jdbc.core.RowMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+public class UploadSessionMapper implements RowMapper<UploadSession> {
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionMapper.class);
+
+    @Override
+    public UploadSession mapRow(ResultSet rs, int rowNum) throws SQLException {
+        try {
+            UploadSession session = new UploadSession();
+            session.setId(rs.getString("id"));
+            session.setUserId(rs.getLong("user_id"));
+            session.setFileName(rs.getString("file_name"));
+            session.setSizeBytes(rs.getLong("size_bytes"));
+            session.setChunkSize(rs.getInt("chunk_size"));
+            session.setSha256(rs.getString("sha256"));
+            session.setStatus(rs.getString("status"));
+            session.setMediaUrl(rs.getString("media_url"));
+
+            // Handle timestamps
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            if (createdAt != null) {
+                session.setCreatedAt(createdAt.toLocalDateTime());
+            }
+
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            if (updatedAt != null) {
+                session.setUpdatedAt(updatedAt.toLocalDateTime());
+            }
+
+            return session;
+        } catch (SQLException e) {
+            logger.error("Error mapping upload session row: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.linksphere.backend.mapper;
+
+import com.linksphere.backend.models.UserImportJob;
+import org.springframework.jdbc.core.RowMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+public class UserImportJobMapper implements RowMapper<UserImportJob> {
+    private static final Logger logger = LoggerFactory.getLogger(UserImportJobMapper.class);
+
+    @Override
+    public UserImportJob mapRow(ResultSet rs, int rowNum) throws SQLException {
+        try {
+            UserImportJob job = new UserImportJob();
+            job.setId(rs.getString("id"));
+            job.setCreatedBy(rs.getLong("created_by"));
+            job.setFormat(rs.getString("format"));
+            job.setStatus(rs.getString("status"));
+            job.setTotalLines(rs.getLong("total_lines"));
+            job.setLinesProcessed(rs.getLong("lines_processed"));
+            job.setImported(rs.getLong("imported"));
+            job.setSkipped(rs.getLong("skipped"));
+            job.setFailed(rs.getLong("failed"));
+            job.setLastError(rs.getString("last_error"));
+
+            // Handle timestamps
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            if (createdAt != null) {
+                job.setCreatedAt(createdAt.toLocalDateTime());
+            }
+
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            if (updatedAt != null) {
+                job.setUpdatedAt(updatedAt.toLocalDateTime());
+            }
+
+            return job;
+        } catch (SQLException e) {
+            logger.error("Error mapping user import job row: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+}
@@ -12,6 +12,8 @@ public class Profile {
     private String experience; // Stores JSON string representing a list
     private String location; // Stores JSON string representing a map
     private String contactInfo; // Stores JSON string representing a map
+    private String profilePicture;
+    private int version; // Incremented by every update
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -34,6 +36,10 @@ public class Profile {
     public void setLocation(String location) { this.location = location; }
     public String getContactInfo() { return contactInfo; }
     public void setContactInfo(String contactInfo) { this.contactInfo = contactInfo; }
+    public String getProfilePicture() { return profilePicture; }
+    public void setProfilePicture(String profilePicture) { this.profilePicture = profilePicture; }
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
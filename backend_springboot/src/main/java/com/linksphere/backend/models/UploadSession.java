@@ -0,0 +1,46 @@
+package com.linksphere.backend.models;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UploadSession {
+    private String id;
+    private Long userId;
+    private String fileName;
+    private long sizeBytes;
+    private int chunkSize;
+    private String sha256;
+    private String status; // OPEN, ASSEMBLING, COMPLETE or FAILED
+    private String mediaUrl;
+    private List<Integer> receivedChunks;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public int getTotalChunks() {
+        return (int) ((sizeBytes + chunkSize - 1) / chunkSize);
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getMediaUrl() { return mediaUrl; }
+    public void setMediaUrl(String mediaUrl) { this.mediaUrl = mediaUrl; }
+    public List<Integer> getReceivedChunks() { return receivedChunks; }
+    public void setReceivedChunks(List<Integer> receivedChunks) { this.receivedChunks = receivedChunks; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,44 @@
+package com.linksphere.backend.models;
+
+import java.time.LocalDateTime;
+
+public class UserImportJob {
+    private String id;
+    private Long createdBy;
+    private String format; // csv or jsonl
+    private String status; // PENDING, RUNNING, COMPLETE or FAILED
+    private long totalLines;
+    private long linesProcessed;
+    private long imported;
+    private long skipped;
+    private long failed;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public Long getCreatedBy() { return createdBy; }
+    public void setCreatedBy(Long createdBy) { this.createdBy = createdBy; }
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public long getTotalLines() { return totalLines; }
+    public void setTotalLines(long totalLines) { this.totalLines = totalLines; }
+    public long getLinesProcessed() { return linesProcessed; }
+    public void setLinesProcessed(long linesProcessed) { this.linesProcessed = linesProcessed; }
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+    public long getSkipped() { return skipped; }
+    public void setSkipped(long skipped) { this.skipped = skipped; }
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
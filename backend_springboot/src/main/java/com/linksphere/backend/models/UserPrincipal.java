@@ -0,0 +1,55 @@
+package com.linksphere.backend.models;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The authenticated user as resolved once per request by JwtRequestFilter.
+ * getName() is the email, so Authentication.getName() keeps its meaning.
+ */
+public class UserPrincipal implements Principal {
+    private final Long id;
+    private final String email;
+    private final String username;
+    private final String role;
+
+    public UserPrincipal(Long id, String email, String username, String role) {
+        this.id = id;
+        this.email = email;
+        this.username = username;
+        this.role = role;
+    }
+
+    public UserPrincipal(User user) {
+        this(user.getId(), user.getEmail(), user.getUsername(), user.getRole());
+    }
+
+    public static UserPrincipal current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof UserPrincipal principal)) {
+            throw new RuntimeException("User not found");
+        }
+        return principal;
+    }
+
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getEmail() { return email; }
+    public String getUsername() { return username; }
+    public String getRole() { return role; }
+}
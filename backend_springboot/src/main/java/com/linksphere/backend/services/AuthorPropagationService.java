@@ -0,0 +1,289 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.models.Post;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rewrites the author fields copied into posts (username, profile_picture)
+ * and comments (username) after a user's profile changes, so the feed keeps
+ * reading them without a join.
+ *
+ * Changes are queued in author_propagation_jobs, one row per user, so a
+ * burst of edits collapses into one pass. A background worker on each node
+ * walks the user's posts and then comments by id in bounded batches, at most
+ * max-batches-per-second, and checkpoints its position after every batch:
+ * a restart resumes where it stopped, and a newer change (a bumped
+ * generation) restarts the pass with the new values.
+ *
+ * A claimed job is leased to the node running it, and every checkpoint
+ * renews the lease. Another node takes a RUNNING job over only once its
+ * lease has expired, so a job left by a stopped node is resumed while a live
+ * node's job is not.
+ */
+@Service
+public class AuthorPropagationService {
+    private static final Logger logger = LoggerFactory.getLogger(AuthorPropagationService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostService postService;
+    private final PostSearchService postSearchService;
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "author-propagation");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    // Identifies this process as the owner of the jobs it leases
+    private final String owner = UUID.randomUUID().toString();
+    private volatile Long runningUserId;
+
+    private final LongAdder completedJobs = new LongAdder();
+    private final LongAdder postsUpdated = new LongAdder();
+    private final LongAdder commentsUpdated = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+
+    @Value("${app.propagation.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.propagation.max-batches-per-second:10}")
+    private int maxBatchesPerSecond;
+
+    @Value("${app.propagation.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    // Must comfortably exceed the time between checkpoints, i.e. one batch plus its throttle
+    @Value("${app.propagation.lease-seconds:60}")
+    private int leaseSeconds;
+
+    public AuthorPropagationService(JdbcTemplate jdbcTemplate, @Lazy PostService postService,
+                                    PostSearchService postSearchService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postService = postService;
+        this.postSearchService = postSearchService;
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.scheduleWithFixedDelay(this::pollQuietly, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Called after the user's username or profile picture changed
+    public void enqueue(Long userId) {
+        // requested_at is assigned first, while status still holds the old value; an unfinished
+        // job keeps its original time so the reported lag covers the oldest unpropagated change
+        jdbcTemplate.update("INSERT INTO author_propagation_jobs (user_id, status) VALUES (?, 'PENDING') " +
+                "ON DUPLICATE KEY UPDATE requested_at = IF(status = 'COMPLETE', CURRENT_TIMESTAMP, requested_at), " +
+                "status = 'PENDING', generation = generation + 1, last_post_id = 0, last_comment_id = 0, " +
+                "posts_updated = 0, comments_updated = 0, owner = NULL, lease_expires_at = NULL", userId);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        Map<String, Object> queue = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS pending, MIN(requested_at) AS oldest FROM author_propagation_jobs " +
+                        "WHERE status IN ('PENDING', 'RUNNING')");
+        Timestamp oldest = (Timestamp) queue.get("oldest");
+        long batchCount = batches.sum();
+        metrics.put("pendingJobs", queue.get("pending"));
+        // How long the oldest unfinished change has been waiting to reach every post
+        metrics.put("lagSeconds", oldest == null ? 0 : Math.max(0, (System.currentTimeMillis() - oldest.getTime()) / 1000));
+        Long running = runningUserId;
+        if (running != null) {
+            metrics.put("running", jdbcTemplate.queryForMap(
+                    "SELECT user_id, last_post_id, last_comment_id, posts_updated, comments_updated " +
+                            "FROM author_propagation_jobs WHERE user_id = ?", running));
+        }
+        metrics.put("completedJobs", completedJobs.sum());
+        metrics.put("postsUpdated", postsUpdated.sum());
+        metrics.put("commentsUpdated", commentsUpdated.sum());
+        metrics.put("batches", batchCount);
+        metrics.put("avgBatchMs", batchCount == 0 ? 0 : batchNanos.sum() / batchCount / 1_000_000.0);
+        return metrics;
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (Exception e) {
+            logger.error("Error propagating author fields: {}", e.getMessage(), e);
+        }
+    }
+
+    private void poll() {
+        while (!Thread.currentThread().isInterrupted()) {
+            // Leases are compared with the database clock, so the nodes' clocks need not agree
+            List<Map<String, Object>> next = jdbcTemplate.queryForList(
+                    "SELECT user_id, generation FROM author_propagation_jobs " +
+                            "WHERE status = 'PENDING' OR (status = 'RUNNING' AND lease_expires_at < NOW()) " +
+                            "ORDER BY requested_at LIMIT 1");
+            if (next.isEmpty()) {
+                return;
+            }
+            Long userId = ((Number) next.get(0).get("user_id")).longValue();
+            int generation = ((Number) next.get(0).get("generation")).intValue();
+            int claimed = jdbcTemplate.update("UPDATE author_propagation_jobs " +
+                    "SET status = 'RUNNING', owner = ?, lease_expires_at = TIMESTAMPADD(SECOND, ?, NOW()) " +
+                    "WHERE user_id = ? AND generation = ? " +
+                    "AND (status = 'PENDING' OR (status = 'RUNNING' AND lease_expires_at < NOW()))",
+                    owner, leaseSeconds, userId, generation);
+            if (claimed > 0) {
+                runningUserId = userId;
+                try {
+                    run(userId, generation);
+                } finally {
+                    runningUserId = null;
+                }
+            }
+        }
+    }
+
+    private void run(Long userId, int generation) {
+        List<Map<String, Object>> author = jdbcTemplate.queryForList(
+                "SELECT u.username, p.profile_picture FROM users u LEFT JOIN profiles p ON p.user_id = u.id WHERE u.id = ?",
+                userId);
+        if (author.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM author_propagation_jobs WHERE user_id = ? AND generation = ?", userId, generation);
+            return;
+        }
+        String username = (String) author.get(0).get("username");
+        String profilePicture = (String) author.get(0).get("profile_picture");
+        Map<String, Object> position = jdbcTemplate.queryForMap(
+                "SELECT last_post_id, last_comment_id FROM author_propagation_jobs WHERE user_id = ?", userId);
+        long lastPostId = ((Number) position.get("last_post_id")).longValue();
+        long lastCommentId = ((Number) position.get("last_comment_id")).longValue();
+        long minIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxBatchesPerSecond);
+
+        while (true) {
+            long start = System.nanoTime();
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT id, username, profile_picture FROM posts WHERE user_id = ? AND id > ? ORDER BY id LIMIT ?",
+                    userId, lastPostId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Long> stale = new ArrayList<>();
+            List<Long> renamed = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                Long id = ((Number) row.get("id")).longValue();
+                boolean usernameChanged = !Objects.equals(row.get("username"), username);
+                if (usernameChanged || !Objects.equals(row.get("profile_picture"), profilePicture)) {
+                    stale.add(id);
+                }
+                if (usernameChanged) {
+                    renamed.add(id);
+                }
+            }
+            if (!stale.isEmpty()) {
+                jdbcTemplate.update("UPDATE posts SET username = ?, profile_picture = ? WHERE id IN (" + placeholders(stale) + ")",
+                        args(stale, username, profilePicture));
+                postsUpdated.add(stale.size());
+            }
+            // The search index holds usernames, so renamed posts are indexed again
+            if (!renamed.isEmpty()) {
+                for (Post post : postService.findPostsInOrder(renamed.stream().mapToLong(Long::longValue).toArray())) {
+                    postSearchService.index(post);
+                }
+            }
+            lastPostId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+            if (!checkpoint("last_post_id = ?, posts_updated = posts_updated + ?", lastPostId, stale.size(), userId, generation)) {
+                return;
+            }
+            if (!throttle(start, minIntervalNanos)) {
+                return;
+            }
+        }
+
+        while (true) {
+            long start = System.nanoTime();
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM comments WHERE user_id = ? AND id > ? AND NOT (username <=> ?) ORDER BY id LIMIT ?",
+                    Long.class, userId, lastCommentId, username, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            jdbcTemplate.update("UPDATE comments SET username = ? WHERE id IN (" + placeholders(ids) + ")",
+                    args(ids, username));
+            commentsUpdated.add(ids.size());
+            lastCommentId = ids.get(ids.size() - 1);
+            if (!checkpoint("last_comment_id = ?, comments_updated = comments_updated + ?", lastCommentId, ids.size(), userId, generation)) {
+                return;
+            }
+            if (!throttle(start, minIntervalNanos)) {
+                return;
+            }
+        }
+
+        int finished = jdbcTemplate.update("UPDATE author_propagation_jobs SET status = 'COMPLETE', owner = NULL, " +
+                "lease_expires_at = NULL WHERE user_id = ? AND generation = ? AND status = 'RUNNING' AND owner = ?",
+                userId, generation, owner);
+        if (finished > 0) {
+            completedJobs.increment();
+            logger.info("Propagated author fields of user {}", userId);
+        }
+    }
+
+    // Renews the lease. false when a newer change superseded this pass (the job is PENDING again and
+    // starts over) or another node took the job over after this one let its lease expire
+    private boolean checkpoint(String assignments, long lastId, int updated, Long userId, int generation) {
+        batches.increment();
+        return jdbcTemplate.update("UPDATE author_propagation_jobs SET " + assignments +
+                ", lease_expires_at = TIMESTAMPADD(SECOND, ?, NOW()) " +
+                "WHERE user_id = ? AND generation = ? AND status = 'RUNNING' AND owner = ?",
+                lastId, updated, leaseSeconds, userId, generation, owner) > 0;
+    }
+
+    // Keeps batches at most maxBatchesPerSecond; false when the worker is shutting down
+    private boolean throttle(long batchStart, long minIntervalNanos) {
+        long elapsed = System.nanoTime() - batchStart;
+        batchNanos.add(elapsed);
+        long remaining = minIntervalNanos - elapsed;
+        if (remaining > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    private static String placeholders(List<Long> ids) {
+        return String.join(",", Collections.nCopies(ids.size(), "?"));
+    }
+
+    private static Object[] args(List<Long> ids, Object... leading) {
+        Object[] args = new Object[leading.length + ids.size()];
+        System.arraycopy(leading, 0, args, 0, leading.length);
+        for (int i = 0; i < ids.size(); i++) {
+            args[leading.length + i] = ids.get(i);
+        }
+        return args;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // An interrupted pass stays RUNNING with its checkpoint; any node resumes it once the lease expires
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,289 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.dto.ChunkedUploadRequest;
+import com.linksphere.backend.mapper.UploadSessionMapper;
+import com.linksphere.backend.models.UploadSession;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resumable chunked uploads for media larger than the multipart limit.
+ *
+ * A session preallocates the target file; each chunk is written straight to
+ * its own offset with positional NIO writes, so chunks may arrive in any
+ * order and in parallel, and a client that lost its connection asks which
+ * chunks are missing and resumes. Completing the session verifies the whole
+ * file hash and hands the file to the content-addressed media store.
+ */
+@Service
+public class ChunkedUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MediaStorageService mediaStorageService;
+    // Chunk writes hold the read side, so chunks of one upload still land in parallel; complete() takes the
+    // write side to claim the session, so no chunk is still writing once the file is hashed and moved
+    private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[LOCK_STRIPES];
+    private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "chunked-upload-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.media.chunk-size:4194304}")
+    private int chunkSize;
+
+    @Value("${app.media.max-chunked-upload-size:2147483648}")
+    private long maxUploadSize;
+
+    @Value("${app.media.upload-session-expiry-hours:24}")
+    private long sessionExpiryHours;
+
+    public ChunkedUploadService(JdbcTemplate jdbcTemplate, MediaStorageService mediaStorageService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mediaStorageService = mediaStorageService;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        cleanupExecutor.scheduleWithFixedDelay(this::cleanupQuietly, 1, 1, TimeUnit.HOURS);
+    }
+
+    public UploadSession initiate(Long userId, ChunkedUploadRequest request) {
+        if (request.getSizeBytes() > maxUploadSize) {
+            throw new RuntimeException("File exceeds the maximum upload size of " + maxUploadSize + " bytes");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        try {
+            Path partPath = partPath(uploadId);
+            Files.createDirectories(partPath.getParent());
+            // Preallocate so every chunk is a positional write into an existing file
+            try (RandomAccessFile file = new RandomAccessFile(partPath.toFile(), "rw")) {
+                file.setLength(request.getSizeBytes());
+            }
+        } catch (IOException e) {
+            logger.error("Failed to preallocate upload {}", uploadId, e);
+            throw new RuntimeException("Failed to start upload", e);
+        }
+
+        jdbcTemplate.update("INSERT INTO upload_sessions (id, user_id, file_name, size_bytes, chunk_size, sha256, status) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, 'OPEN')",
+                uploadId, userId, request.getFileName(), request.getSizeBytes(), chunkSize, request.getSha256());
+        logger.info("Started chunked upload {} of {} bytes for user {}", uploadId, request.getSizeBytes(), userId);
+        return getStatus(userId, uploadId);
+    }
+
+    public UploadSession writeChunk(Long userId, String uploadId, long offset, InputStream body, String expectedSha256) {
+        ReentrantReadWriteLock.ReadLock lock = lockFor(uploadId).readLock();
+        lock.lock();
+        try {
+            writeChunkLocked(userId, uploadId, offset, body, expectedSha256);
+        } finally {
+            lock.unlock();
+        }
+        return getStatus(userId, uploadId);
+    }
+
+    // The status is checked under the lock, so a chunk either finishes before complete() claims the session or is refused
+    private void writeChunkLocked(Long userId, String uploadId, long offset, InputStream body, String expectedSha256) {
+        UploadSession session = requireSession(userId, uploadId);
+        if (!"OPEN".equals(session.getStatus())) {
+            throw new RuntimeException("Upload is " + session.getStatus());
+        }
+        if (offset < 0 || offset >= session.getSizeBytes() || offset % session.getChunkSize() != 0) {
+            throw new RuntimeException("Offset must be a multiple of the chunk size within the file");
+        }
+        int chunkIndex = (int) (offset / session.getChunkSize());
+        long expectedLength = Math.min(session.getChunkSize(), session.getSizeBytes() - offset);
+
+        String chunkHash;
+        try (ReadableByteChannel source = Channels.newChannel(body);
+             FileChannel target = FileChannel.open(partPath(uploadId), StandardOpenOption.WRITE)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long written = 0;
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                if (written + buffer.remaining() > expectedLength) {
+                    throw new RuntimeException("Chunk " + chunkIndex + " is larger than " + expectedLength + " bytes");
+                }
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    written += target.write(buffer, offset + written);
+                }
+                buffer.clear();
+            }
+            if (written != expectedLength) {
+                throw new RuntimeException("Chunk " + chunkIndex + " is incomplete: " + written + " of " + expectedLength + " bytes");
+            }
+            chunkHash = HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            logger.error("Failed to write chunk {} of upload {}", chunkIndex, uploadId, e);
+            throw new RuntimeException("Failed to write chunk", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(chunkHash)) {
+            throw new RuntimeException("Chunk " + chunkIndex + " failed its integrity check");
+        }
+        // A retried chunk simply overwrites the same region and row
+        jdbcTemplate.update("INSERT INTO upload_chunks (upload_id, chunk_index, sha256) VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE sha256 = VALUES(sha256)", uploadId, chunkIndex, chunkHash);
+        jdbcTemplate.update("UPDATE upload_sessions SET updated_at = NOW() WHERE id = ?", uploadId);
+    }
+
+    public UploadSession getStatus(Long userId, String uploadId) {
+        UploadSession session = requireSession(userId, uploadId);
+        session.setReceivedChunks(jdbcTemplate.queryForList(
+                "SELECT chunk_index FROM upload_chunks WHERE upload_id = ? ORDER BY chunk_index", Integer.class, uploadId));
+        return session;
+    }
+
+    public UploadSession complete(Long userId, String uploadId) {
+        UploadSession session = getStatus(userId, uploadId);
+        if ("COMPLETE".equals(session.getStatus())) {
+            return session;
+        }
+        if (session.getReceivedChunks().size() != session.getTotalChunks()) {
+            throw new RuntimeException("Upload is missing " + (session.getTotalChunks() - session.getReceivedChunks().size()) + " chunks");
+        }
+        int claimed;
+        ReentrantReadWriteLock.WriteLock lock = lockFor(uploadId).writeLock();
+        lock.lock();
+        try {
+            claimed = jdbcTemplate.update(
+                    "UPDATE upload_sessions SET status = 'ASSEMBLING' WHERE id = ? AND status = 'OPEN'", uploadId);
+        } finally {
+            lock.unlock();
+        }
+        if (claimed == 0) {
+            throw new RuntimeException("Upload is already being completed");
+        }
+
+        Path partPath = partPath(uploadId);
+        String hash;
+        try {
+            hash = MediaStorageService.sha256(partPath);
+        } catch (IOException e) {
+            releaseAfterFailure(uploadId, partPath);
+            logger.error("Failed to assemble upload {}", uploadId, e);
+            throw new RuntimeException("Failed to complete upload", e);
+        }
+        if (session.getSha256() != null && !session.getSha256().equals(hash)) {
+            jdbcTemplate.update("UPDATE upload_sessions SET status = 'FAILED' WHERE id = ?", uploadId);
+            try {
+                Files.deleteIfExists(partPath);
+            } catch (IOException e) {
+                logger.warn("Could not delete part file of upload {}: {}", uploadId, e.getMessage());
+            }
+            throw new RuntimeException("Uploaded file failed its integrity check");
+        }
+
+        String url;
+        try {
+            // Moves the part file into the media store; it is left in place if that fails, and deleted if the
+            // moved file no longer matches the hash
+            url = mediaStorageService.storeAssembled(partPath, hash, session.getFileName());
+        } catch (RuntimeException e) {
+            releaseAfterFailure(uploadId, partPath);
+            logger.error("Failed to store assembled upload {}", uploadId, e);
+            throw new RuntimeException("Failed to complete upload", e);
+        }
+        jdbcTemplate.update("UPDATE upload_sessions SET status = 'COMPLETE', media_url = ? WHERE id = ?", url, uploadId);
+        jdbcTemplate.update("DELETE FROM upload_chunks WHERE upload_id = ?", uploadId);
+        logger.info("Completed chunked upload {} as {}", uploadId, url);
+        return getStatus(userId, uploadId);
+    }
+
+    // Reopens the session so complete can be retried, unless the assembled file is gone with it
+    private void releaseAfterFailure(String uploadId, Path partPath) {
+        String status = Files.exists(partPath) ? "OPEN" : "FAILED";
+        jdbcTemplate.update("UPDATE upload_sessions SET status = ? WHERE id = ? AND status = 'ASSEMBLING'", status, uploadId);
+    }
+
+    public void cleanupExpired() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(sessionExpiryHours));
+        List<String> expired = jdbcTemplate.queryForList(
+                "SELECT id FROM upload_sessions WHERE updated_at < ?", String.class, cutoff);
+        for (String uploadId : expired) {
+            try {
+                Files.deleteIfExists(partPath(uploadId));
+            } catch (IOException e) {
+                logger.warn("Could not delete part file of upload {}: {}", uploadId, e.getMessage());
+            }
+            jdbcTemplate.update("DELETE FROM upload_sessions WHERE id = ?", uploadId);
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Removed {} expired upload sessions", expired.size());
+        }
+    }
+
+    private void cleanupQuietly() {
+        try {
+            cleanupExpired();
+        } catch (Exception e) {
+            logger.error("Error cleaning up upload sessions: {}", e.getMessage(), e);
+        }
+    }
+
+    private UploadSession requireSession(Long userId, String uploadId) {
+        List<UploadSession> sessions = jdbcTemplate.query("SELECT * FROM upload_sessions WHERE id = ? AND user_id = ?",
+                new UploadSessionMapper(), uploadId, userId);
+        if (sessions.isEmpty()) {
+            throw new RuntimeException("Upload not found");
+        }
+        return sessions.get(0);
+    }
+
+    private ReentrantReadWriteLock lockFor(String uploadId) {
+        return locks[Math.floorMod(uploadId.hashCode(), LOCK_STRIPES)];
+    }
+
+    // Kept under the upload directory so completing the upload is an atomic rename
+    private Path partPath(String uploadId) {
+        return Paths.get(uploadDir).resolve(".chunks").resolve(uploadId + ".part");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleanupExecutor.shutdownNow();
+    }
+}
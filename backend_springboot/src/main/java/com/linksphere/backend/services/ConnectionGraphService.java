@@ -0,0 +1,941 @@
+package com.linksphere.backend.services;
+
+import jakarta.annotation.PreDestroy;
+import com.linksphere.backend.dto.MutualConnections;
+import com.linksphere.backend.util.RebuildExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of the connections graph in compressed sparse row form.
+ *
+ * Users are mapped to dense int ordinals and the neighbours of ordinal v are
+ * targets[offsets[v] .. offsets[v + 1]), sorted ascending. connect and
+ * disconnect patch single vertices copy-on-write; once enough vertices have
+ * been patched the arrays are compacted back into CSR form.
+ *
+ * Footprint at 1M users and 50M connection rows (each connection is stored in
+ * both directions): targets 200 MB, offsets 4 MB, ordinal-to-id 8 MB and the
+ * id-to-ordinal hash 24 MB, about 236 MB in total. The same graph as a boxed
+ * Map&lt;Long, Set&lt;Long&gt;&gt; needs upwards of 3 GB. Each concurrent
+ * query also borrows a scratch slot: three int arrays (suggestion counts and
+ * the two search-side seen marks) of 1.125 entries per user, about 13.5 MB at
+ * 1M users. Up to two slots per core are pooled between calls.
+ */
+@Service
+public class ConnectionGraphService {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionGraphService.class);
+    // Past this size ratio, galloping through the longer list beats a linear merge
+    private static final int GALLOP_RATIO = 32;
+    // BFS visit marks pack a search epoch with the depth reached, so marks never need clearing
+    private static final int DEPTH_BITS = 3;
+    private static final int DEPTH_MASK = (1 << DEPTH_BITS) - 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Scratch space is borrowed per call rather than kept per thread: with virtual threads every
+    // request is a new thread, and a graph-sized allocation per request would defeat the reuse
+    private final BlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+    private final RebuildExecutor rebuildExecutor = new RebuildExecutor("connection-graph-rebuild");
+
+    private Graph graph = new Graph(0); // guarded by lock
+    private volatile boolean ready;
+    // Connects and disconnects made while a rebuild is scanning the table, as {userId, connectedUserId, 1|0}
+    private List<long[]> pendingDuringRebuild;
+
+    @Value("${app.network.suggestion-max-results:500}")
+    private int maxResults;
+
+    @Value("${app.network.suggestion-max-fanout:2000}")
+    private int maxFanout;
+
+    @Value("${app.network.max-degree:3}")
+    private int maxDegree;
+
+    public ConnectionGraphService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuildExecutor.retryUntilDone(this::rebuild);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean rebuild() {
+        logger.info("Rebuilding connection graph");
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        try {
+            Graph rebuilt = Graph.load(jdbcTemplate, maxResults * 2);
+            lock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    for (long[] change : pendingDuringRebuild) {
+                        rebuilt.setEdge(change[0], change[1], change[2] == 1);
+                    }
+                    pendingDuringRebuild = null;
+                }
+                graph = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            logger.info("Connection graph rebuilt with {} users and {} edges", rebuilt.vertexCount(), rebuilt.edgeCount());
+            return true;
+        } catch (Exception e) {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+            }
+            logger.error("Error rebuilding connection graph: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    public void addConnection(long userId, long connectedUserId) {
+        applyChange(userId, connectedUserId, true);
+    }
+
+    public void removeConnection(long userId, long connectedUserId) {
+        applyChange(userId, connectedUserId, false);
+    }
+
+    private void applyChange(long userId, long connectedUserId, boolean connected) {
+        synchronized (this) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(new long[] { userId, connectedUserId, connected ? 1 : 0 });
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            graph.setEdge(userId, connectedUserId, connected);
+            graph.compactIfFragmented();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the user ids for one page of suggestions: people sharing the
+     * most connections with the user first, then well-connected users to
+     * fill the page.
+     */
+    public long[] suggest(long userId, int page, int size) {
+        int offset = page * size;
+        int k = Math.min(offset + size, maxResults);
+        if (offset >= k) {
+            return new long[0];
+        }
+        long[] ranked;
+        Scratch reusable = borrowScratch();
+        lock.readLock().lock();
+        try {
+            ranked = graph.suggest(userId, k, maxFanout, reusable);
+        } finally {
+            lock.readLock().unlock();
+        }
+        scratchPool.offer(reusable);
+        if (offset >= ranked.length) {
+            return new long[0];
+        }
+        return Arrays.copyOfRange(ranked, offset, Math.min(ranked.length, offset + size));
+    }
+
+    /**
+     * Returns the connection degree from the user to each of the others: 0
+     * for the user themself, 1 for a direct connection, 2 for a connection
+     * of a connection and so on, or null beyond app.network.max-degree.
+     */
+    public Map<Long, Integer> degrees(long userId, List<Long> otherUserIds) {
+        int maxDepth = Math.min(maxDegree, DEPTH_MASK - 1);
+        Scratch reusable = borrowScratch();
+        Map<Long, Integer> degrees = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            int source = graph.ordinal(userId);
+            for (Long otherUserId : otherUserIds) {
+                int target = graph.ordinal(otherUserId);
+                int distance;
+                if (userId == otherUserId) {
+                    distance = 0;
+                } else if (source < 0 || target < 0) {
+                    distance = -1;
+                } else {
+                    distance = graph.distance(source, target, maxDepth, reusable);
+                }
+                degrees.put(otherUserId, distance >= 0 ? distance : null);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        scratchPool.offer(reusable);
+        return degrees;
+    }
+
+    // The user's direct connections, unordered; empty for unknown users
+    public long[] connectionIds(long userId) {
+        lock.readLock().lock();
+        try {
+            int source = graph.ordinal(userId);
+            if (source < 0) {
+                return new long[0];
+            }
+            int[] adjacency = graph.adjacency(source);
+            int from = graph.adjacencyFrom(source);
+            long[] ids = new long[graph.adjacencyTo(source) - from];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = graph.userId(adjacency[from + i]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Degree 1 or 2 from the user to each candidate, or -1 when further away
+     * or unknown. Unlike degrees() this never searches the graph: it is a
+     * binary search in the user's adjacency and then an intersection with
+     * it, cheap enough to rank thousands of search results.
+     */
+    public int[] nearDegrees(long userId, long[] candidateUserIds) {
+        int[] near = new int[candidateUserIds.length];
+        Arrays.fill(near, -1);
+        long[] noSample = new long[0];
+        lock.readLock().lock();
+        try {
+            int source = graph.ordinal(userId);
+            if (source < 0) {
+                return near;
+            }
+            int[] adjacency = graph.adjacency(source);
+            int from = graph.adjacencyFrom(source);
+            int to = graph.adjacencyTo(source);
+            for (int i = 0; i < candidateUserIds.length; i++) {
+                int target = graph.ordinal(candidateUserIds[i]);
+                if (target < 0 || target == source) {
+                    continue;
+                }
+                if (Arrays.binarySearch(adjacency, from, to, target) >= 0) {
+                    near[i] = 1;
+                } else if (graph.intersect(source, target, noSample) > 0) {
+                    near[i] = 2;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return near;
+    }
+
+    /**
+     * Returns how many connections the user shares with each of the others,
+     * with up to sampleSize of the shared user ids.
+     */
+    public Map<Long, MutualConnections> mutualConnections(long userId, List<Long> otherUserIds, int sampleSize) {
+        Map<Long, MutualConnections> mutuals = new LinkedHashMap<>();
+        long[] sample = new long[sampleSize];
+        lock.readLock().lock();
+        try {
+            int source = graph.ordinal(userId);
+            for (Long otherUserId : otherUserIds) {
+                int target = graph.ordinal(otherUserId);
+                int count = source < 0 || target < 0 || source == target ? 0 : graph.intersect(source, target, sample);
+                List<Long> sampled = new ArrayList<>(Math.min(count, sampleSize));
+                for (int i = 0; i < count && i < sampleSize; i++) {
+                    sampled.add(sample[i]);
+                }
+                mutuals.put(otherUserId, new MutualConnections(count, sampled));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return mutuals;
+    }
+
+    // A scratch left dirty by a failed call is dropped rather than returned
+    private Scratch borrowScratch() {
+        Scratch reusable = scratchPool.poll();
+        return reusable != null ? reusable : new Scratch();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        rebuildExecutor.shutdown();
+    }
+
+    /**
+     * Not thread-safe; the service guards it with its read/write lock.
+     */
+    static class Graph {
+        private final LongIntMap ordinals = new LongIntMap();
+        private final int popularSize;
+        private long[] userIds = new long[16];
+        private int vertexCount;
+        // CSR covers the ordinals that existed at the last compaction
+        private int[] offsets = { 0 };
+        private int[] targets = new int[0];
+        // Sorted neighbours replacing a vertex's CSR slice after a connect or disconnect
+        private int[][] patched = new int[16][];
+        private int patchedCount;
+        private long edgeCount;
+        // Highest-degree users, used to fill suggestions for sparse neighbourhoods
+        private int[] popular = new int[0];
+
+        Graph(int popularSize) {
+            this.popularSize = popularSize;
+        }
+
+        static Graph load(JdbcTemplate jdbcTemplate, int popularSize) {
+            Graph graph = new Graph(popularSize);
+            jdbcTemplate.query(streaming("SELECT id FROM users ORDER BY id"),
+                    (RowCallbackHandler) rs -> graph.ordinalOrAdd(rs.getLong(1)));
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM connections", Long.class);
+            CsrBuilder builder = new CsrBuilder(graph, rows != null ? rows : 0);
+            // The unique (user_id, connected_user_id) key makes this an ordered index scan
+            jdbcTemplate.query(streaming("SELECT user_id, connected_user_id FROM connections ORDER BY user_id, connected_user_id"),
+                    builder);
+            builder.finish();
+            graph.computePopular();
+            return graph;
+        }
+
+        int vertexCount() {
+            return vertexCount;
+        }
+
+        long edgeCount() {
+            return edgeCount;
+        }
+
+        // -1 when the user has no vertex yet
+        int ordinal(long userId) {
+            return ordinals.get(userId);
+        }
+
+        long userId(int v) {
+            return userIds[v];
+        }
+
+        int ordinalOrAdd(long userId) {
+            int v = ordinals.get(userId);
+            if (v >= 0) {
+                return v;
+            }
+            v = vertexCount++;
+            if (v == userIds.length) {
+                userIds = Arrays.copyOf(userIds, v * 2);
+                patched = Arrays.copyOf(patched, v * 2);
+            }
+            userIds[v] = userId;
+            ordinals.put(userId, v);
+            return v;
+        }
+
+        // Neighbours of v are adjacency(v)[adjacencyFrom(v) .. adjacencyTo(v)), read without copying
+        int[] adjacency(int v) {
+            int[] patch = patched[v];
+            return patch != null ? patch : targets;
+        }
+
+        int adjacencyFrom(int v) {
+            if (patched[v] != null || v >= offsets.length - 1) {
+                return 0;
+            }
+            return offsets[v];
+        }
+
+        int adjacencyTo(int v) {
+            int[] patch = patched[v];
+            if (patch != null) {
+                return patch.length;
+            }
+            return v < offsets.length - 1 ? offsets[v + 1] : 0;
+        }
+
+        int degree(int v) {
+            return adjacencyTo(v) - adjacencyFrom(v);
+        }
+
+        void setEdge(long userId, long connectedUserId, boolean connected) {
+            int a = connected ? ordinalOrAdd(userId) : ordinal(userId);
+            int b = connected ? ordinalOrAdd(connectedUserId) : ordinal(connectedUserId);
+            if (a < 0 || b < 0) {
+                return;
+            }
+            patchOne(a, b, connected);
+            patchOne(b, a, connected);
+        }
+
+        private void patchOne(int v, int w, boolean add) {
+            int[] adjacency = adjacency(v);
+            int from = adjacencyFrom(v);
+            int to = adjacencyTo(v);
+            int found = Arrays.binarySearch(adjacency, from, to, w);
+            if (add == (found >= 0)) {
+                return;
+            }
+            int length = to - from;
+            int[] next;
+            if (add) {
+                int insertAt = -found - 1 - from;
+                next = new int[length + 1];
+                System.arraycopy(adjacency, from, next, 0, insertAt);
+                next[insertAt] = w;
+                System.arraycopy(adjacency, from + insertAt, next, insertAt + 1, length - insertAt);
+                edgeCount++;
+            } else {
+                int removeAt = found - from;
+                next = new int[length - 1];
+                System.arraycopy(adjacency, from, next, 0, removeAt);
+                System.arraycopy(adjacency, from + removeAt + 1, next, removeAt, length - removeAt - 1);
+                edgeCount--;
+            }
+            if (patched[v] == null) {
+                patchedCount++;
+            }
+            patched[v] = next;
+        }
+
+        void compactIfFragmented() {
+            if (patchedCount > Math.max(1024, vertexCount / 8)) {
+                compact();
+            }
+        }
+
+        void compact() {
+            int[] compactOffsets = new int[vertexCount + 1];
+            for (int v = 0; v < vertexCount; v++) {
+                compactOffsets[v + 1] = compactOffsets[v] + degree(v);
+            }
+            int[] compactTargets = new int[compactOffsets[vertexCount]];
+            for (int v = 0; v < vertexCount; v++) {
+                int from = adjacencyFrom(v);
+                System.arraycopy(adjacency(v), from, compactTargets, compactOffsets[v], adjacencyTo(v) - from);
+            }
+            offsets = compactOffsets;
+            targets = compactTargets;
+            patched = new int[userIds.length][];
+            patchedCount = 0;
+            computePopular();
+        }
+
+        private void computePopular() {
+            TopK top = new TopK(Math.min(popularSize, vertexCount));
+            for (int v = 0; v < vertexCount; v++) {
+                top.offer(TopK.key(degree(v), v));
+            }
+            popular = top.drainOrdinalsDescending();
+        }
+
+        /**
+         * Counts, for every friend-of-a-friend, how many of the user's
+         * connections they share, and keeps the k best with a bounded heap.
+         * At most maxFanout of the user's connections are expanded so a very
+         * well-connected user does not scan most of the graph.
+         */
+        long[] suggest(long userId, int k, int maxFanout, Scratch scratch) {
+            int v = ordinal(userId);
+            int[] counts = scratch.counts(vertexCount);
+            TopK top = new TopK(k);
+            if (v >= 0) {
+                // -1 excludes the user and existing connections
+                scratch.touch(v);
+                counts[v] = -1;
+                int[] adjacency = adjacency(v);
+                int from = adjacencyFrom(v);
+                int to = adjacencyTo(v);
+                for (int i = from; i < to; i++) {
+                    scratch.touch(adjacency[i]);
+                    counts[adjacency[i]] = -1;
+                }
+                int expandTo = from + Math.min(to - from, maxFanout);
+                for (int i = from; i < expandTo; i++) {
+                    int u = adjacency[i];
+                    int[] second = adjacency(u);
+                    int secondTo = adjacencyTo(u);
+                    for (int j = adjacencyFrom(u); j < secondTo; j++) {
+                        int w = second[j];
+                        int count = counts[w];
+                        if (count < 0) {
+                            continue;
+                        }
+                        if (count == 0) {
+                            scratch.touch(w);
+                        }
+                        counts[w] = count + 1;
+                    }
+                }
+                for (int i = 0; i < scratch.touchedSize; i++) {
+                    int w = scratch.touched[i];
+                    if (counts[w] > 0) {
+                        top.offer(TopK.key(counts[w], w));
+                    }
+                }
+            }
+
+            int[] ranked = top.drainOrdinalsDescending();
+            long[] result = new long[k];
+            int size = 0;
+            for (int w : ranked) {
+                result[size++] = userIds[w];
+            }
+            // Anyone with a mutual connection was either ranked or cut off by a full page
+            for (int i = 0; i < popular.length && size < k; i++) {
+                int w = popular[i];
+                if (w < counts.length && counts[w] == 0) {
+                    result[size++] = userIds[w];
+                }
+            }
+            scratch.reset();
+            return size == k ? result : Arrays.copyOf(result, size);
+        }
+
+        /**
+         * Bidirectional breadth-first search. Each round expands one whole
+         * level of whichever side has the fewer frontier edges, so the search
+         * touches roughly the square root of what a one-sided BFS would.
+         * Returns -1 when the users are more than maxDepth apart.
+         */
+        int distance(int source, int target, int maxDepth, Scratch scratch) {
+            if (source == target) {
+                return 0;
+            }
+            int epoch = scratch.nextEpoch(vertexCount);
+            int[] seenFromSource = scratch.seenFromSource;
+            int[] seenFromTarget = scratch.seenFromTarget;
+            seenFromSource[source] = epoch << DEPTH_BITS;
+            seenFromTarget[target] = epoch << DEPTH_BITS;
+            Frontier sourceFrontier = scratch.sourceFrontier.reset(source);
+            Frontier targetFrontier = scratch.targetFrontier.reset(target);
+            Frontier next = scratch.nextFrontier;
+            int sourceDepth = 0;
+            int targetDepth = 0;
+
+            while (sourceDepth + targetDepth < maxDepth) {
+                boolean fromSource = frontierEdges(sourceFrontier) <= frontierEdges(targetFrontier);
+                Frontier current = fromSource ? sourceFrontier : targetFrontier;
+                int[] seenHere = fromSource ? seenFromSource : seenFromTarget;
+                int[] seenThere = fromSource ? seenFromTarget : seenFromSource;
+                int depth = (fromSource ? sourceDepth : targetDepth) + 1;
+                int mark = (epoch << DEPTH_BITS) | depth;
+                int best = Integer.MAX_VALUE;
+                next.size = 0;
+
+                for (int i = 0; i < current.size; i++) {
+                    int u = current.items[i];
+                    int[] adjacency = adjacency(u);
+                    int to = adjacencyTo(u);
+                    for (int j = adjacencyFrom(u); j < to; j++) {
+                        int w = adjacency[j];
+                        int there = seenThere[w];
+                        if (there >>> DEPTH_BITS == epoch) {
+                            best = Math.min(best, depth + (there & DEPTH_MASK));
+                        }
+                        if (seenHere[w] >>> DEPTH_BITS != epoch) {
+                            seenHere[w] = mark;
+                            next.add(w);
+                        }
+                    }
+                }
+                // The whole level is scanned first because meetings on it can differ in length
+                if (best != Integer.MAX_VALUE) {
+                    return best <= maxDepth ? best : -1;
+                }
+                if (next.size == 0) {
+                    return -1;
+                }
+                Frontier expanded = current;
+                if (fromSource) {
+                    sourceFrontier = next;
+                    sourceDepth = depth;
+                } else {
+                    targetFrontier = next;
+                    targetDepth = depth;
+                }
+                next = expanded;
+            }
+            return -1;
+        }
+
+        /**
+         * Counts the common neighbours of a and b and copies the first
+         * sample.length of them (as user ids) into sample. Lists of similar
+         * length are merged; when one is much longer, each element of the
+         * shorter list gallops ahead in the longer one, so a small user
+         * against a hub costs O(small * log(hub)) rather than O(hub).
+         */
+        int intersect(int a, int b, long[] sample) {
+            int[] small = adjacency(a);
+            int smallFrom = adjacencyFrom(a);
+            int smallTo = adjacencyTo(a);
+            int[] large = adjacency(b);
+            int largeFrom = adjacencyFrom(b);
+            int largeTo = adjacencyTo(b);
+            if (smallTo - smallFrom > largeTo - largeFrom) {
+                int[] array = small;
+                small = large;
+                large = array;
+                int from = smallFrom;
+                smallFrom = largeFrom;
+                largeFrom = from;
+                int to = smallTo;
+                smallTo = largeTo;
+                largeTo = to;
+            }
+            int count = 0;
+            int i = smallFrom;
+            int j = largeFrom;
+            if ((long) (smallTo - smallFrom) * GALLOP_RATIO < largeTo - largeFrom) {
+                for (; i < smallTo && j < largeTo; i++) {
+                    j = gallop(large, j, largeTo, small[i]);
+                    if (j < largeTo && large[j] == small[i]) {
+                        if (count < sample.length) {
+                            sample[count] = userIds[small[i]];
+                        }
+                        count++;
+                        j++;
+                    }
+                }
+                return count;
+            }
+            while (i < smallTo && j < largeTo) {
+                int x = small[i];
+                int y = large[j];
+                if (x < y) {
+                    i++;
+                } else if (x > y) {
+                    j++;
+                } else {
+                    if (count < sample.length) {
+                        sample[count] = userIds[x];
+                    }
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return count;
+        }
+
+        // First index in [from, to) holding a value >= key, found by doubling then binary search
+        private static int gallop(int[] array, int from, int to, int key) {
+            int bound = 1;
+            while (from + bound < to && array[from + bound] < key) {
+                bound <<= 1;
+            }
+            int found = Arrays.binarySearch(array, from + (bound >> 1), Math.min(from + bound, to), key);
+            return found >= 0 ? found : -found - 1;
+        }
+
+        private long frontierEdges(Frontier frontier) {
+            long edges = 0;
+            for (int i = 0; i < frontier.size; i++) {
+                edges += degree(frontier.items[i]);
+            }
+            return edges;
+        }
+    }
+
+    // Builds the CSR arrays from (user_id, connected_user_id) rows in ascending order
+    private static class CsrBuilder implements RowCallbackHandler {
+        private final Graph graph;
+        private int[] offsets;
+        private int[] targets;
+        private int size;
+        private int current = -1;
+        private int previousTarget = -1;
+        private boolean unsorted;
+        // Rows whose source vertex was created out of id order by a concurrent registration
+        private final List<int[]> late = new ArrayList<>();
+
+        CsrBuilder(Graph graph, long expectedRows) {
+            this.graph = graph;
+            this.offsets = new int[graph.vertexCount + 1];
+            this.targets = new int[(int) Math.min(expectedRows + 1024, Integer.MAX_VALUE - 8)];
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            int source = graph.ordinalOrAdd(rs.getLong(1));
+            int target = graph.ordinalOrAdd(rs.getLong(2));
+            if (source < current) {
+                late.add(new int[] { source, target });
+                return;
+            }
+            if (source != current) {
+                startVerticesThrough(source);
+                previousTarget = -1;
+            }
+            if (target < previousTarget) {
+                unsorted = true;
+            }
+            previousTarget = target;
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, size + (size >> 1) + 16);
+            }
+            targets[size++] = target;
+        }
+
+        private void startVerticesThrough(int v) {
+            if (v + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(v + 2, offsets.length * 2));
+            }
+            for (int o = current + 1; o <= v; o++) {
+                offsets[o] = size;
+            }
+            current = v;
+        }
+
+        void finish() {
+            startVerticesThrough(graph.vertexCount);
+            graph.offsets = Arrays.copyOf(offsets, graph.vertexCount + 1);
+            graph.targets = size == targets.length ? targets : Arrays.copyOf(targets, size);
+            graph.edgeCount = size;
+            if (unsorted) {
+                for (int v = 0; v < graph.vertexCount; v++) {
+                    Arrays.sort(graph.targets, graph.offsets[v], graph.offsets[v + 1]);
+                }
+            }
+            for (int[] edge : late) {
+                graph.patchOne(edge[0], edge[1], true);
+            }
+        }
+    }
+
+    private static PreparedStatementCreator streaming(String sql) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Makes MySQL Connector/J stream rows instead of buffering the whole result
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        };
+    }
+
+    // Per-call scratch space, sized to the graph; counts are cleared through the touched list
+    static class Scratch {
+        private int[] counts = new int[0];
+        private int[] touched = new int[64];
+        private int touchedSize;
+        private int[] seenFromSource = new int[0];
+        private int[] seenFromTarget = new int[0];
+        private int epoch;
+        private final Frontier sourceFrontier = new Frontier();
+        private final Frontier targetFrontier = new Frontier();
+        private final Frontier nextFrontier = new Frontier();
+
+        int nextEpoch(int vertexCount) {
+            if (seenFromSource.length < vertexCount) {
+                seenFromSource = new int[vertexCount + (vertexCount >> 3) + 16];
+                seenFromTarget = new int[seenFromSource.length];
+                epoch = 0;
+            }
+            if (++epoch > Integer.MAX_VALUE >>> DEPTH_BITS) {
+                Arrays.fill(seenFromSource, 0);
+                Arrays.fill(seenFromTarget, 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+
+        int[] counts(int vertexCount) {
+            if (counts.length < vertexCount) {
+                counts = new int[vertexCount + (vertexCount >> 3) + 16];
+            }
+            return counts;
+        }
+
+        void touch(int v) {
+            if (touchedSize == touched.length) {
+                touched = Arrays.copyOf(touched, touchedSize * 2);
+            }
+            touched[touchedSize++] = v;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedSize; i++) {
+                counts[touched[i]] = 0;
+            }
+            touchedSize = 0;
+        }
+    }
+
+    private static class Frontier {
+        private int[] items = new int[64];
+        private int size;
+
+        Frontier reset(int v) {
+            items[0] = v;
+            size = 1;
+            return this;
+        }
+
+        void add(int v) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = v;
+        }
+    }
+
+    // Fixed-size min-heap of (score << 32 | tie-break) keys; lower ordinals win ties
+    private static class TopK {
+        private final long[] keys;
+        private int size;
+
+        TopK(int k) {
+            keys = new long[k];
+        }
+
+        static long key(int score, int v) {
+            return ((long) score << 32) | (Integer.MAX_VALUE - v);
+        }
+
+        void offer(long key) {
+            if (size < keys.length) {
+                keys[size] = key;
+                siftUp(size++);
+            } else if (size > 0 && key > keys[0]) {
+                keys[0] = key;
+                siftDown(0);
+            }
+        }
+
+        int[] drainOrdinalsDescending() {
+            int[] out = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                out[i] = Integer.MAX_VALUE - (int) keys[0];
+                keys[0] = keys[--size];
+                siftDown(0);
+            }
+            return out;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[i] >= keys[parent]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int smallest = i;
+                if (left < size && keys[left] < keys[smallest]) {
+                    smallest = left;
+                }
+                if (left + 1 < size && keys[left + 1] < keys[smallest]) {
+                    smallest = left + 1;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+        }
+    }
+
+    // Open-addressing long to int map; avoids a boxed Long and map entry per user
+    static class LongIntMap {
+        private static final long EMPTY = Long.MIN_VALUE;
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        LongIntMap() {
+            keys = new long[64];
+            values = new int[64];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    return values[i];
+                }
+                if (k == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            if (insert(keys, values, key, value)) {
+                size++;
+            }
+        }
+
+        private void resize() {
+            long[] newKeys = new long[keys.length * 2];
+            int[] newValues = new int[values.length * 2];
+            Arrays.fill(newKeys, EMPTY);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    insert(newKeys, newValues, keys[i], values[i]);
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+
+        private static boolean insert(long[] keys, int[] values, long key, int value) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                if (keys[i] == EMPTY) {
+                    keys[i] = key;
+                    values[i] = value;
+                    return true;
+                }
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return false;
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
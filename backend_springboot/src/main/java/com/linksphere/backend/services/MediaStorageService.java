@@ -0,0 +1,346 @@
+package com.linksphere.backend.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for uploaded media.
+ *
+ * Uploads are hashed with SHA-256 while they are streamed to a temp file and
+ * then stored once as {@code <hash>.<ext>}, so identical files share one copy
+ * and a stored file never changes. media_objects keeps a reference count per
+ * file, maintained as posts start and stop using it; files nobody references
+ * are removed by a periodic sweep once the orphan grace period has passed.
+ */
+@Service
+public class MediaStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(MediaStorageService.class);
+    private static final String URL_PREFIX = "/uploads/";
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("/uploads/([0-9a-f]{64}\\.[a-z0-9]{1,10})");
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,10}");
+    private static final Pattern HASH_NAME = Pattern.compile("([0-9a-f]{64})\\.[a-z0-9]{1,10}");
+    private static final Pattern SAFE_FILE_NAME = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ThumbnailService thumbnailService;
+    // Serializes "file exists" checks in store() against deletes in the sweeper for the same file.
+    // Not monitors: the sections do file and JDBC I/O, which would pin a virtual thread's carrier
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final ScheduledExecutorService gcExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "media-gc");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.media.gc-interval-ms:600000}")
+    private long gcIntervalMs;
+
+    @Value("${app.media.orphan-grace-minutes:60}")
+    private long orphanGraceMinutes;
+
+    public MediaStorageService(JdbcTemplate jdbcTemplate, ThumbnailService thumbnailService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.thumbnailService = thumbnailService;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        gcExecutor.scheduleWithFixedDelay(this::collectGarbageQuietly, gcIntervalMs, gcIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public String store(MultipartFile file) {
+        logger.info("Storing media file: {}", file.getOriginalFilename());
+        Path uploadPath = Paths.get(uploadDir);
+        Path tempPath = null;
+        try {
+            Path tempDir = uploadPath.resolve(".tmp");
+            Files.createDirectories(tempDir);
+            tempPath = tempDir.resolve(UUID.randomUUID() + ".part");
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size = 0;
+            try (InputStream in = file.getInputStream();
+                 ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel target = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        size += target.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                target.force(false);
+            }
+
+            return commit(tempPath, HexFormat.of().formatHex(digest.digest()), size, file.getOriginalFilename(), false);
+        } catch (IOException e) {
+            logger.error("Failed to store media file", e);
+            throw new RuntimeException("Failed to store file", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } finally {
+            deleteQuietly(tempPath);
+        }
+    }
+
+    /**
+     * Moves a fully written file (e.g. an assembled chunked upload) into the
+     * store. The file must live under the upload directory so the move is atomic.
+     */
+    // The assembled file is moved into place on success and left alone on failure, so the caller can retry.
+    // It is hashed again once moved; if it no longer matches, it is deleted rather than served or deduplicated to
+    public String storeAssembled(Path assembled, String hash, String originalFilename) {
+        try {
+            return commit(assembled, hash, Files.size(assembled), originalFilename, true);
+        } catch (IOException e) {
+            logger.error("Failed to store assembled media file", e);
+            throw new RuntimeException("Failed to store file", e);
+        }
+    }
+
+    public static String sha256(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String commit(Path tempPath, String hash, long size, String originalFilename, boolean verifyAfterMove) throws IOException {
+        String fileName = hash + "." + extensionOf(originalFilename);
+        Path filePath = Paths.get(uploadDir).resolve(fileName);
+
+        ReentrantLock lock = lockFor(fileName);
+        lock.lock();
+        try {
+            if (Files.exists(filePath)) {
+                Files.delete(tempPath);
+                logger.info("Media already stored, deduplicated to: {}", filePath);
+            } else {
+                Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE);
+                if (verifyAfterMove && !hash.equals(sha256(filePath))) {
+                    Files.delete(filePath);
+                    throw new IOException("Stored file " + fileName + " no longer matches its hash");
+                }
+                logger.info("Successfully stored media at: {}", filePath);
+            }
+            // Refreshing updated_at restarts the orphan grace period for re-uploads
+            jdbcTemplate.update("INSERT INTO media_objects (file_name, hash, size_bytes, ref_count) VALUES (?, ?, ?, 0) " +
+                    "ON DUPLICATE KEY UPDATE updated_at = NOW()", fileName, hash, size);
+        } finally {
+            lock.unlock();
+        }
+        thumbnailService.enqueue(fileName);
+        return URL_PREFIX + fileName;
+    }
+
+    /**
+     * Resolves a file under the upload directory for serving, preferring the
+     * requested variant when it has been generated. Returns null when the file
+     * does not exist or the name could escape the upload directory.
+     */
+    public StoredFile resolve(String fileName, String variant) throws IOException {
+        if (fileName == null || !SAFE_FILE_NAME.matcher(fileName).matches() || fileName.startsWith(".")) {
+            return null;
+        }
+        Path uploadPath = Paths.get(uploadDir);
+        Matcher hashName = HASH_NAME.matcher(fileName);
+        boolean contentAddressed = hashName.matches();
+
+        if (variant != null && ThumbnailService.VARIANT_SIZES.containsKey(variant) && ThumbnailService.isImage(fileName)) {
+            String variantName = ThumbnailService.variantFileName(fileName, variant);
+            Path variantPath = uploadPath.resolve(variantName);
+            if (Files.isRegularFile(variantPath)) {
+                String etag = contentAddressed ? "\"" + hashName.group(1) + "-" + variant + "\"" : null;
+                return new StoredFile(variantPath, etag, contentAddressed);
+            }
+            // Variant not generated yet: serve the original, but the same URL will change later
+            Path original = uploadPath.resolve(fileName);
+            return Files.isRegularFile(original) ? new StoredFile(original, null, false) : null;
+        }
+
+        Path path = uploadPath.resolve(fileName);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        // Content-addressed and legacy UUID-named uploads are never rewritten in place
+        String etag = contentAddressed ? "\"" + hashName.group(1) + "\"" : null;
+        return new StoredFile(path, etag, true);
+    }
+
+    // mediaUrls is the comma-separated list stored on posts
+    public void retain(String mediaUrls) {
+        adjustReferences(mediaUrls, 1);
+    }
+
+    public void release(String mediaUrls) {
+        adjustReferences(mediaUrls, -1);
+    }
+
+    private void adjustReferences(String mediaUrls, int delta) {
+        List<String> fileNames = contentAddressedFiles(mediaUrls);
+        if (fileNames.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(fileNames.size());
+        for (String fileName : fileNames) {
+            args.add(new Object[] { delta, fileName });
+        }
+        jdbcTemplate.batchUpdate("UPDATE media_objects SET ref_count = GREATEST(ref_count + ?, 0) WHERE file_name = ?", args);
+    }
+
+    public void collectGarbage() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusMinutes(orphanGraceMinutes));
+        List<String> orphans = jdbcTemplate.queryForList(
+                "SELECT file_name FROM media_objects WHERE ref_count = 0 AND updated_at < ? LIMIT 1000", String.class, cutoff);
+        int removed = 0;
+        for (String fileName : orphans) {
+            ReentrantLock lock = lockFor(fileName);
+            lock.lock();
+            try {
+                int rows = jdbcTemplate.update(
+                        "DELETE FROM media_objects WHERE file_name = ? AND ref_count = 0 AND updated_at < ?", fileName, cutoff);
+                if (rows > 0) {
+                    deleteQuietly(Paths.get(uploadDir).resolve(fileName));
+                    thumbnailService.deleteVariants(fileName);
+                    removed++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (removed > 0) {
+            logger.info("Garbage-collected {} unreferenced media files", removed);
+        }
+    }
+
+    private void collectGarbageQuietly() {
+        try {
+            collectGarbage();
+        } catch (Exception e) {
+            logger.error("Error collecting unreferenced media: {}", e.getMessage(), e);
+        }
+    }
+
+    static List<String> contentAddressedFiles(String mediaUrls) {
+        Set<String> fileNames = new LinkedHashSet<>();
+        if (mediaUrls == null || mediaUrls.isBlank()) {
+            return new ArrayList<>();
+        }
+        for (String url : mediaUrls.split(",")) {
+            Matcher matcher = CONTENT_ADDRESSED.matcher(url.trim());
+            if (matcher.find()) {
+                fileNames.add(matcher.group(1));
+            }
+        }
+        return new ArrayList<>(fileNames);
+    }
+
+    private static String extensionOf(String originalFilename) {
+        if (originalFilename != null) {
+            int dot = originalFilename.lastIndexOf('.');
+            if (dot >= 0) {
+                String extension = originalFilename.substring(dot + 1).toLowerCase(Locale.ROOT);
+                if (EXTENSION.matcher(extension).matches()) {
+                    return extension;
+                }
+            }
+        }
+        return "bin";
+    }
+
+    private ReentrantLock lockFor(String fileName) {
+        return locks[Math.floorMod(fileName.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gcExecutor.shutdownNow();
+    }
+
+    public static class StoredFile {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+        private final String etag;
+        private final boolean immutable;
+
+        StoredFile(Path path, String etag, boolean immutable) throws IOException {
+            this.path = path;
+            this.size = Files.size(path);
+            this.lastModified = Files.getLastModifiedTime(path).toMillis();
+            // Files not named by their hash fall back to a size/mtime validator
+            this.etag = etag != null ? etag : "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+            this.immutable = immutable;
+        }
+
+        public Path getPath() { return path; }
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+        public String getEtag() { return etag; }
+        public boolean isImmutable() { return immutable; }
+    }
+}
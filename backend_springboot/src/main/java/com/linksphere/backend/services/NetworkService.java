@@ -1,82 +1,161 @@
 package com.linksphere.backend.services;
 
+import com.linksphere.backend.dto.BulkConnectResult;
+import com.linksphere.backend.dto.MutualConnections;
+import com.linksphere.backend.dto.PageResponse;
+import com.linksphere.backend.dto.ProfileCard;
 import com.linksphere.backend.mapper.ConnectionMapper;
 import com.linksphere.backend.models.Connection;
-import com.linksphere.backend.models.User;
+import com.linksphere.backend.util.PageCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class NetworkService {
     private static final Logger logger = LoggerFactory.getLogger(NetworkService.class);
+    private static final String SUGGESTION_COLUMNS = """
+        SELECT
+            u.id,
+            u.id as user_id,
+            u.id as connected_user_id,
+            u.username,
+            p.profile_picture,
+            COALESCE(p.headline, 'LinkSphere User') as headline,
+            NOW() as created_at,
+            NOW() as updated_at
+        FROM users u
+        LEFT JOIN profiles p ON u.id = p.user_id
+        """;
+    // Username, picture and headline are filled in from ProfileCardService
+    private static final String CONNECTION_COLUMNS = """
+        SELECT c.*, NULL as username, NULL as profile_picture, NULL as headline
+        FROM connections c
+        """;
     private final JdbcTemplate jdbcTemplate;
-    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+    private final TimelineService timelineService;
+    private final ConnectionGraphService connectionGraphService;
+    private final ProfileCardService profileCardService;
 
-    public NetworkService(JdbcTemplate jdbcTemplate, UserService userService) {
+    @Value("${app.network.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.network.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.network.max-batch-users:100}")
+    private int maxBatchUsers;
+
+    @Value("${app.network.mutual-sample-size:3}")
+    private int mutualSampleSize;
+
+    @Value("${app.network.max-bulk-connect:500}")
+    private int maxBulkConnect;
+
+    public NetworkService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                          TimelineService timelineService, ConnectionGraphService connectionGraphService,
+                          ProfileCardService profileCardService) {
         this.jdbcTemplate = jdbcTemplate;
-        this.userService = userService;
+        this.transactionTemplate = transactionTemplate;
+        this.timelineService = timelineService;
+        this.connectionGraphService = connectionGraphService;
+        this.profileCardService = profileCardService;
     }
 
-    public List<Connection> getConnections(String email) {
-        logger.info("Fetching connections for user with email: {}", email);
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
+    public int resolvePageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
         }
+        return Math.min(limit, maxPageSize);
+    }
 
+    public PageResponse<Connection> getConnections(Long userId, String cursor, Integer limit) {
+        logger.info("Fetching connections for user: {}", userId);
+        PageCursor before = PageCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
         try {
-            String sql = """
-                SELECT c.*, u.username, p.profile_picture, p.headline
-                FROM connections c
-                JOIN users u ON c.connected_user_id = u.id
-                LEFT JOIN profiles p ON c.connected_user_id = p.user_id
-                WHERE c.user_id = ?
-                ORDER BY c.created_at DESC
-                """;
-            List<Connection> connections = jdbcTemplate.query(sql, new ConnectionMapper(), user.getId());
-            logger.info("Successfully fetched {} connections for user: {}", connections.size(), user.getId());
-            return connections;
+            List<Connection> connections;
+            // Served by idx_connections_user_created, so each page reads only pageSize + 1 rows
+            if (before == null) {
+                String sql = CONNECTION_COLUMNS + "WHERE c.user_id = ? ORDER BY c.created_at DESC, c.id DESC LIMIT ?";
+                connections = jdbcTemplate.query(sql, new ConnectionMapper(), userId, pageSize + 1);
+            } else {
+                String sql = CONNECTION_COLUMNS + "WHERE c.user_id = ? AND (c.created_at, c.id) < (?, ?) " +
+                        "ORDER BY c.created_at DESC, c.id DESC LIMIT ?";
+                connections = jdbcTemplate.query(sql, new ConnectionMapper(), userId,
+                        Timestamp.valueOf(before.getCreatedAt()), before.getId(), pageSize + 1);
+            }
+            boolean hasMore = connections.size() > pageSize;
+            if (hasMore) {
+                connections = new ArrayList<>(connections.subList(0, pageSize));
+            }
+            String nextCursor = null;
+            if (hasMore) {
+                Connection last = connections.get(connections.size() - 1);
+                nextCursor = PageCursor.encode(last.getCreatedAt(), last.getId());
+            }
+            connections = withProfileCards(connections);
+            logger.info("Successfully fetched {} connections for user: {}", connections.size(), userId);
+            return new PageResponse<>(connections, nextCursor, hasMore);
         } catch (Exception e) {
             logger.error("Error fetching connections: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to fetch connections: " + e.getMessage());
         }
     }
 
-    public List<Connection> getSuggestions(String email) {
-        logger.info("Fetching connection suggestions for user with email: {}", email);
-        User user = userService.findByEmail(email);
-        if (user == null) {
+    /**
+     * Reads the denormalized users.connection_count, kept current by connect
+     * and disconnect, instead of counting the user's connection rows.
+     */
+    public int getConnectionCount(Long userId) {
+        List<Integer> counts = jdbcTemplate.queryForList(
+                "SELECT connection_count FROM users WHERE id = ?", Integer.class, userId);
+        if (counts.isEmpty()) {
             throw new RuntimeException("User not found");
         }
+        return counts.get(0);
+    }
 
+    public List<Connection> getSuggestions(Long userId, int page, Integer size) {
+        logger.info("Fetching connection suggestions for user: {}", userId);
+        int pageSize = resolvePageSize(size);
+        int safePage = Math.max(page, 0);
         try {
-            // Get all users except the current user
-            String sql = """
-                SELECT 
-                    u.id, 
-                    u.id as user_id, 
-                    u.id as connected_user_id, 
-                    u.username, 
-                    p.profile_picture, 
-                    COALESCE(p.headline, 'LinkSphere User') as headline,
-                    NOW() as created_at, 
-                    NOW() as updated_at
-                FROM users u
-                LEFT JOIN profiles p ON u.id = p.user_id
-                WHERE u.id != ?
-                AND u.id NOT IN (
-                    SELECT connected_user_id
-                    FROM connections
-                    WHERE user_id = ?
-                )
-                ORDER BY u.username ASC
-                """;
-            List<Connection> suggestions = jdbcTemplate.query(sql, new ConnectionMapper(), user.getId(), user.getId());
-            logger.info("Successfully fetched {} suggestions for user: {}", suggestions.size(), user.getId());
+            List<Connection> suggestions;
+            if (connectionGraphService.isReady()) {
+                suggestions = findSuggestionsInOrder(connectionGraphService.suggest(userId, safePage, pageSize));
+            } else {
+                // Graph is still loading after startup; fall back to a bounded query
+                String sql = SUGGESTION_COLUMNS + """
+                    WHERE u.id != ?
+                    AND u.id NOT IN (
+                        SELECT connected_user_id
+                        FROM connections
+                        WHERE user_id = ?
+                    )
+                    ORDER BY u.username ASC
+                    LIMIT ? OFFSET ?
+                    """;
+                suggestions = jdbcTemplate.query(sql, new ConnectionMapper(), userId, userId,
+                        pageSize, safePage * pageSize);
+            }
+            logger.info("Successfully fetched {} suggestions for user: {}", suggestions.size(), userId);
             return suggestions;
         } catch (Exception e) {
             logger.error("Error fetching suggestions: {}", e.getMessage(), e);
@@ -84,16 +163,113 @@ public class NetworkService {
         }
     }
 
-    public void connect(String email, Long connectedUserId) {
-        logger.info("Connecting user with email: {} to user: {}", email, connectedUserId);
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
+    // Same shape as SUGGESTION_COLUMNS rows, built from cached profile cards
+    private List<Connection> findSuggestionsInOrder(long[] userIds) {
+        if (userIds.length == 0) {
+            return new ArrayList<>();
         }
+        Map<Long, ProfileCard> cards = profileCardService.getCards(Arrays.stream(userIds).boxed().toList());
+        LocalDateTime now = LocalDateTime.now();
+        List<Connection> suggestions = new ArrayList<>(userIds.length);
+        for (long id : userIds) {
+            ProfileCard card = cards.get(id);
+            if (card != null) {
+                suggestions.add(new Connection(id, id, id, card.getUsername(), card.getProfilePicture(),
+                        card.getHeadline() != null ? card.getHeadline() : "LinkSphere User", now, now));
+            }
+        }
+        return suggestions;
+    }
+
+    // Connections whose user no longer exists are dropped, as the former inner join did
+    private List<Connection> withProfileCards(List<Connection> connections) {
+        Map<Long, ProfileCard> cards = profileCardService.getCards(
+                connections.stream().map(Connection::getConnectedUserId).toList());
+        List<Connection> hydrated = new ArrayList<>(connections.size());
+        for (Connection connection : connections) {
+            ProfileCard card = cards.get(connection.getConnectedUserId());
+            if (card != null) {
+                connection.setUsername(card.getUsername());
+                connection.setProfilePicture(card.getProfilePicture());
+                connection.setHeadline(card.getHeadline());
+                hydrated.add(connection);
+            }
+        }
+        return hydrated;
+    }
+
+    /**
+     * Annotates a page of users with their connection degree to the caller
+     * (1st, 2nd, 3rd); null means further away.
+     */
+    public Map<Long, Integer> getConnectionDegrees(Long userId, List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        List<Long> ids = userIds.stream().distinct().limit(maxBatchUsers).toList();
+
+        try {
+            if (connectionGraphService.isReady()) {
+                return connectionGraphService.degrees(userId, ids);
+            }
+            // Graph is still loading after startup; only direct connections can be answered cheaply
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            List<Object> args = new ArrayList<>();
+            args.add(userId);
+            args.addAll(ids);
+            List<Long> connected = jdbcTemplate.queryForList(
+                    "SELECT connected_user_id FROM connections WHERE user_id = ? AND connected_user_id IN (" + placeholders + ")",
+                    Long.class, args.toArray());
+            Map<Long, Integer> degrees = new LinkedHashMap<>();
+            for (Long id : ids) {
+                degrees.put(id, id.equals(userId) ? Integer.valueOf(0) : connected.contains(id) ? Integer.valueOf(1) : null);
+            }
+            return degrees;
+        } catch (Exception e) {
+            logger.error("Error fetching connection degrees: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to fetch connection degrees: " + e.getMessage());
+        }
+    }
 
+    public Map<Long, MutualConnections> getMutualConnections(Long userId, List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        List<Long> ids = userIds.stream().distinct().limit(maxBatchUsers).toList();
+
+        try {
+            if (connectionGraphService.isReady()) {
+                return connectionGraphService.mutualConnections(userId, ids, mutualSampleSize);
+            }
+            // Graph is still loading after startup; one grouped self-join for the whole page, counts only
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            List<Object> args = new ArrayList<>();
+            args.add(userId);
+            args.addAll(ids);
+            Map<Long, Integer> counts = new HashMap<>();
+            jdbcTemplate.query("SELECT other.user_id, COUNT(*) AS mutual_count FROM connections mine " +
+                            "JOIN connections other ON other.connected_user_id = mine.connected_user_id " +
+                            "WHERE mine.user_id = ? AND other.user_id IN (" + placeholders + ") GROUP BY other.user_id",
+                    rs -> {
+                        counts.put(rs.getLong("user_id"), rs.getInt("mutual_count"));
+                    }, args.toArray());
+            Map<Long, MutualConnections> mutuals = new LinkedHashMap<>();
+            for (Long id : ids) {
+                int count = id.equals(userId) ? 0 : counts.getOrDefault(id, 0);
+                mutuals.put(id, new MutualConnections(count, new ArrayList<>()));
+            }
+            return mutuals;
+        } catch (Exception e) {
+            logger.error("Error fetching mutual connections: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to fetch mutual connections: " + e.getMessage());
+        }
+    }
+
+    public void connect(Long userId, Long connectedUserId) {
+        logger.info("Connecting user: {} to user: {}", userId, connectedUserId);
         // Check if already connected
         String checkSql = "SELECT COUNT(*) FROM connections WHERE user_id = ? AND connected_user_id = ?";
-        int count = jdbcTemplate.queryForObject(checkSql, Integer.class, user.getId(), connectedUserId);
+        int count = jdbcTemplate.queryForObject(checkSql, Integer.class, userId, connectedUserId);
         if (count > 0) {
             return; // Already connected
         }
@@ -101,27 +277,137 @@ public class NetworkService {
         try {
             // Create bidirectional connection
             String sql = "INSERT INTO connections (user_id, connected_user_id, created_at, updated_at) VALUES (?, ?, NOW(), NOW())";
-            jdbcTemplate.update(sql, user.getId(), connectedUserId);
-            jdbcTemplate.update(sql, connectedUserId, user.getId());
-            logger.info("Successfully created connection between users: {} and {}", user.getId(), connectedUserId);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(sql, userId, connectedUserId);
+                jdbcTemplate.update(sql, connectedUserId, userId);
+                jdbcTemplate.update("UPDATE users SET connection_count = connection_count + 1 WHERE id IN (?, ?)",
+                        userId, connectedUserId);
+            });
+            logger.info("Successfully created connection between users: {} and {}", userId, connectedUserId);
+            connectionGraphService.addConnection(userId, connectedUserId);
+            timelineService.onConnectionChanged(userId, connectedUserId);
         } catch (Exception e) {
             logger.error("Error creating connection: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to create connection: " + e.getMessage());
         }
     }
 
-    public void disconnect(String email, Long connectedUserId) {
-        logger.info("Disconnecting user with email: {} from user: {}", email, connectedUserId);
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
+    /**
+     * Connects the user to many others at once, e.g. after a contact import.
+     * Existing edges and unknown users are found with one set-based query;
+     * the new edges are written in both directions as a single JDBC batch,
+     * together with the connection counts, in one transaction.
+     */
+    public List<BulkConnectResult> bulkConnect(Long userId, List<Long> userIds) {
+        if (userIds.size() > maxBulkConnect) {
+            throw new RuntimeException("At most " + maxBulkConnect + " users can be connected at once");
+        }
+        logger.info("Bulk connecting user {} to {} users", userId, userIds.size());
+
+        Set<Long> unique = new HashSet<>();
+        List<Long> candidates = new ArrayList<>();
+        for (Long id : userIds) {
+            if (id != null && !id.equals(userId) && unique.add(id)) {
+                candidates.add(id);
+            }
         }
 
+        Set<Long> existingUsers = new HashSet<>();
+        Set<Long> alreadyConnected = new HashSet<>();
+        List<Long> toConnect = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (candidates.isEmpty()) {
+                    return;
+                }
+                String placeholders = String.join(",", Collections.nCopies(candidates.size(), "?"));
+                List<Object> args = new ArrayList<>();
+                args.add(userId);
+                args.addAll(candidates);
+                // FOR UPDATE locks the looked-up keys so a concurrent connect cannot slip in between
+                jdbcTemplate.query("SELECT u.id, c.id AS connection_id FROM users u " +
+                                "LEFT JOIN connections c ON c.user_id = ? AND c.connected_user_id = u.id " +
+                                "WHERE u.id IN (" + placeholders + ") FOR UPDATE",
+                        rs -> {
+                            long id = rs.getLong("id");
+                            existingUsers.add(id);
+                            if (rs.getObject("connection_id") != null) {
+                                alreadyConnected.add(id);
+                            }
+                        }, args.toArray());
+                for (Long id : candidates) {
+                    if (existingUsers.contains(id) && !alreadyConnected.contains(id)) {
+                        toConnect.add(id);
+                    }
+                }
+                if (toConnect.isEmpty()) {
+                    return;
+                }
+
+                List<Object[]> edges = new ArrayList<>(toConnect.size() * 2);
+                for (Long id : toConnect) {
+                    edges.add(new Object[] { userId, id });
+                    edges.add(new Object[] { id, userId });
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO connections (user_id, connected_user_id, created_at, updated_at) " +
+                        "VALUES (?, ?, NOW(), NOW()) ON DUPLICATE KEY UPDATE updated_at = updated_at", edges);
+                String connectedPlaceholders = String.join(",", Collections.nCopies(toConnect.size(), "?"));
+                jdbcTemplate.update("UPDATE users SET connection_count = connection_count + 1 WHERE id IN (" +
+                        connectedPlaceholders + ")", toConnect.toArray());
+                jdbcTemplate.update("UPDATE users SET connection_count = connection_count + ? WHERE id = ?",
+                        toConnect.size(), userId);
+            });
+        } catch (Exception e) {
+            logger.error("Error bulk connecting user {}: {}", userId, e.getMessage(), e);
+            throw new RuntimeException("Failed to create connections: " + e.getMessage());
+        }
+
+        for (Long id : toConnect) {
+            connectionGraphService.addConnection(userId, id);
+            timelineService.onConnectionChanged(userId, id);
+        }
+
+        Set<Long> reported = new HashSet<>();
+        Set<Long> connected = new HashSet<>(toConnect);
+        List<BulkConnectResult> results = new ArrayList<>(userIds.size());
+        for (Long id : userIds) {
+            BulkConnectResult.Status status;
+            if (id != null && id.equals(userId)) {
+                status = BulkConnectResult.Status.SELF;
+            } else if (!reported.add(id)) {
+                status = BulkConnectResult.Status.DUPLICATE;
+            } else if (connected.contains(id)) {
+                status = BulkConnectResult.Status.CONNECTED;
+            } else if (alreadyConnected.contains(id)) {
+                status = BulkConnectResult.Status.ALREADY_CONNECTED;
+            } else {
+                status = BulkConnectResult.Status.USER_NOT_FOUND;
+            }
+            results.add(new BulkConnectResult(id, status));
+        }
+        logger.info("Bulk connect for user {} created {} connections", userId, toConnect.size());
+        return results;
+    }
+
+    public void disconnect(Long userId, Long connectedUserId) {
+        logger.info("Disconnecting user: {} from user: {}", userId, connectedUserId);
         try {
             // Remove bidirectional connection
             String sql = "DELETE FROM connections WHERE (user_id = ? AND connected_user_id = ?) OR (user_id = ? AND connected_user_id = ?)";
-            int rowsAffected = jdbcTemplate.update(sql, user.getId(), connectedUserId, connectedUserId, user.getId());
-            logger.info("Successfully removed {} connection records between users: {} and {}", rowsAffected, user.getId(), connectedUserId);
+            Integer deleted = transactionTemplate.execute(status -> {
+                int rows = jdbcTemplate.update(sql, userId, connectedUserId, connectedUserId, userId);
+                if (rows > 0) {
+                    jdbcTemplate.update("UPDATE users SET connection_count = GREATEST(connection_count - 1, 0) WHERE id IN (?, ?)",
+                            userId, connectedUserId);
+                }
+                return rows;
+            });
+            int rowsAffected = deleted != null ? deleted : 0;
+            logger.info("Successfully removed {} connection records between users: {} and {}", rowsAffected, userId, connectedUserId);
+            if (rowsAffected > 0) {
+                connectionGraphService.removeConnection(userId, connectedUserId);
+                timelineService.onConnectionChanged(userId, connectedUserId);
+            }
         } catch (Exception e) {
             logger.error("Error removing connection: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to remove connection: " + e.getMessage());
@@ -0,0 +1,182 @@
+package com.linksphere.backend.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt hashing and verification on a small dedicated pool.
+ *
+ * BCrypt is deliberately CPU-bound, so a login storm on request threads
+ * would occupy every Tomcat worker and starve the rest of the API. Here at
+ * most hashing-workers hashes run at once; callers get a future instead of
+ * blocking a request thread. When the queue is full, or a task has waited
+ * longer than the client is likely to, it fails fast with
+ * {@link OverloadedException} carrying a Retry-After estimate.
+ */
+@Service
+public class PasswordHashingService {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private ThreadPoolExecutor workers;
+    private volatile String unknownUserPassword;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+    // 0 means half the available processors, leaving the rest for request handling
+    @Value("${app.auth.hashing-workers:0}")
+    private int workerCount;
+
+    @Value("${app.auth.hashing-queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.auth.hashing-max-wait-ms:5000}")
+    private long maxWaitMs;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder) {
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (workerCount <= 0) {
+            workerCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        logger.info("Password hashing pool started with {} workers and a queue of {}", workerCount, queueCapacity);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    // A null encodedPassword (no such user) is checked against a throwaway hash and never matches,
+    // so an unknown email costs as much as a wrong password and cannot be told apart by timing
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return submit(() -> {
+                passwordEncoder.matches(rawPassword, unknownUserPassword());
+                return false;
+            });
+        }
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Runs work dominated by password hashing, such as an AuthenticationManager
+     * call, on the hashing pool. The future fails with OverloadedException
+     * when the work is shed.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            workers.execute(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitNanos.add(startedAt - queuedAt);
+                if (startedAt - queuedAt > TimeUnit.MILLISECONDS.toNanos(maxWaitMs)) {
+                    expired.increment();
+                    future.completeExceptionally(new OverloadedException(retryAfterSeconds()));
+                    return;
+                }
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    hashNanos.add(elapsed);
+                    maxHashNanos.accumulate(elapsed);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(new OverloadedException(retryAfterSeconds()));
+        }
+        return future;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long done = completed.sum();
+        metrics.put("queueDepth", workers.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("activeWorkers", workers.getActiveCount());
+        metrics.put("workers", workerCount);
+        metrics.put("completed", done);
+        metrics.put("rejected", rejected.sum());
+        metrics.put("expired", expired.sum());
+        metrics.put("avgHashMs", done == 0 ? 0 : hashNanos.sum() / done / 1_000_000.0);
+        metrics.put("maxHashMs", maxHashNanos.get() / 1_000_000.0);
+        metrics.put("avgQueueWaitMs", done == 0 ? 0 : queueWaitNanos.sum() / done / 1_000_000.0);
+        return metrics;
+    }
+
+    // Encoded on first use, on a hashing worker, with the same cost as real hashes
+    private String unknownUserPassword() {
+        String encoded = unknownUserPassword;
+        if (encoded == null) {
+            encoded = passwordEncoder.encode(UUID.randomUUID().toString());
+            unknownUserPassword = encoded;
+        }
+        return encoded;
+    }
+
+    // Time for the pool to drain the current queue at the observed hashing rate
+    private long retryAfterSeconds() {
+        long done = completed.sum();
+        long avgNanos = done == 0 ? TimeUnit.MILLISECONDS.toNanos(100) : hashNanos.sum() / done;
+        long drainNanos = (workers.getQueue().size() + 1L) * avgNanos / workerCount;
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(drainNanos) + 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public static class OverloadedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterSeconds;
+
+        public OverloadedException(long retryAfterSeconds) {
+            super("Too many authentication requests, retry in " + retryAfterSeconds + " seconds");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.dto.PersonSearchResult;
+import com.linksphere.backend.dto.ProfileCard;
+import com.linksphere.backend.models.Profile;
+import com.linksphere.backend.util.PrefixExpansion;
+import com.linksphere.backend.util.RebuildExecutor;
+import com.linksphere.backend.util.RoaringBitmap;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * People search over profile skills and headlines.
+ *
+ * Both fields are tokenized into an in-memory inverted index whose posting
+ * sets are compressed bitmaps of user ordinals, so boolean queries are
+ * bitmap ANDs and ORs. A query is whitespace-separated terms that must all
+ * match, "OR" (or "|") between alternatives, and a trailing "*" for prefix
+ * matching: "kotlin spring OR java*". Results rank 1st-degree connections of
+ * the viewer first, then 2nd-degree, then everyone else; within a degree a
+ * match in skills counts more than one in the headline.
+ */
+@Service
+public class PeopleSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(PeopleSearchService.class);
+    private static final int SKILL_WEIGHT = 2;
+    private static final int HEADLINE_WEIGHT = 1;
+    // Postings a prefix may expand to; past this the rarest matching terms are left out
+    private static final int MAX_PREFIX_POSTINGS = 1 << 18;
+    private static final int MAX_QUERY_TERMS = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConnectionGraphService connectionGraphService;
+    private final ProfileCardService profileCardService;
+    private final RebuildExecutor rebuildExecutor = new RebuildExecutor("people-search-rebuild");
+
+    private volatile Index index = new Index();
+    private volatile boolean ready;
+    // Changes made while a rebuild is scanning the table, replayed onto the new index
+    private List<Profile> pendingDuringRebuild;
+
+    @Value("${app.people-search.max-results:1000}")
+    private int maxResults;
+
+    // Broad queries are cut to the best text matches before ranking by degree
+    @Value("${app.people-search.max-candidates:20000}")
+    private int maxCandidates;
+
+    @Value("${app.network.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.network.max-page-size:100}")
+    private int maxPageSize;
+
+    public PeopleSearchService(JdbcTemplate jdbcTemplate, ConnectionGraphService connectionGraphService,
+                               ProfileCardService profileCardService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.connectionGraphService = connectionGraphService;
+        this.profileCardService = profileCardService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuildExecutor.retryUntilDone(this::rebuild);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean rebuild() {
+        logger.info("Rebuilding people search index");
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        try {
+            Index rebuilt = new Index();
+            jdbcTemplate.query("SELECT user_id, skills, headline FROM profiles ORDER BY user_id", rs -> {
+                rebuilt.put(rs.getLong("user_id"), rs.getString("skills"), rs.getString("headline"));
+            });
+            synchronized (this) {
+                for (Profile change : pendingDuringRebuild) {
+                    rebuilt.put(change.getUserId(), change.getSkills(), change.getHeadline());
+                }
+                pendingDuringRebuild = null;
+                index = rebuilt;
+            }
+            ready = true;
+            logger.info("People search index rebuilt with {} profiles and {} terms", rebuilt.profileCount(), rebuilt.termCount());
+            return true;
+        } catch (Exception e) {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+            }
+            logger.error("Error rebuilding people search index: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    // Called for created and updated profiles; the user's previous terms are replaced
+    public void index(Profile profile) {
+        synchronized (this) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(profile);
+            }
+        }
+        index.put(profile.getUserId(), profile.getSkills(), profile.getHeadline());
+    }
+
+    public List<PersonSearchResult> search(Long viewerId, String query, int page, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        int offset = Math.max(page, 0) * pageSize;
+        List<List<Term>> alternatives = parseQuery(query);
+        if (alternatives.isEmpty() || offset >= maxResults) {
+            return new ArrayList<>();
+        }
+        if (!ready) {
+            return toResults(viewerId, scanWhileLoading(alternatives, viewerId, offset, pageSize));
+        }
+
+        Candidates candidates = index.match(alternatives, viewerId, maxCandidates);
+        int[] near = connectionGraphService.nearDegrees(viewerId, candidates.userIds);
+        long[] keys = new long[candidates.userIds.length];
+        for (int i = 0; i < keys.length; i++) {
+            // Nearer degree first, then text score, then the earlier indexed profile
+            long closeness = near[i] == 1 ? 2 : near[i] == 2 ? 1 : 0;
+            keys[i] = closeness << 56 | (long) candidates.scores[i] << 32 | (Integer.MAX_VALUE - i);
+        }
+        Arrays.sort(keys);
+
+        int end = Math.min(keys.length, Math.min(offset + pageSize, maxResults));
+        if (offset >= end) {
+            return new ArrayList<>();
+        }
+        List<Long> pageIds = new ArrayList<>(end - offset);
+        for (int rank = offset; rank < end; rank++) {
+            int i = Integer.MAX_VALUE - (int) keys[keys.length - 1 - rank];
+            pageIds.add(candidates.userIds[i]);
+        }
+
+        return toResults(viewerId, pageIds);
+    }
+
+    private List<PersonSearchResult> toResults(Long viewerId, List<Long> userIds) {
+        Map<Long, Integer> degrees = connectionGraphService.degrees(viewerId, userIds);
+        List<PersonSearchResult> results = new ArrayList<>(userIds.size());
+        for (ProfileCard card : profileCardService.getCardsInOrder(userIds)) {
+            results.add(new PersonSearchResult(card.getUserId(), card.getUsername(), card.getProfilePicture(),
+                    card.getHeadline(), degrees.get(card.getUserId())));
+        }
+        return results;
+    }
+
+    // Index is still loading after startup; fall back to a bounded scan without degree ranking
+    private List<Long> scanWhileLoading(List<List<Term>> alternatives, Long viewerId, int offset, int pageSize) {
+        List<String> clauses = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        for (List<Term> terms : alternatives) {
+            List<String> conditions = new ArrayList<>();
+            for (Term term : terms) {
+                conditions.add("(LOWER(skills) LIKE ? OR LOWER(headline) LIKE ?)");
+                String pattern = "%" + term.text() + "%";
+                args.add(pattern);
+                args.add(pattern);
+            }
+            clauses.add("(" + String.join(" AND ", conditions) + ")");
+        }
+        args.add(viewerId);
+        args.add(pageSize);
+        args.add(offset);
+        return jdbcTemplate.queryForList("SELECT user_id FROM profiles WHERE (" + String.join(" OR ", clauses) + ") " +
+                "AND user_id <> ? ORDER BY user_id LIMIT ? OFFSET ?", Long.class, args.toArray());
+    }
+
+    // Alternatives joined by OR, each a list of terms joined by AND
+    static List<List<Term>> parseQuery(String query) {
+        List<List<Term>> alternatives = new ArrayList<>();
+        if (query == null) {
+            return alternatives;
+        }
+        List<Term> current = new ArrayList<>();
+        int termCount = 0;
+        for (String word : query.trim().split("\\s+")) {
+            if (word.equals("OR") || word.equals("|")) {
+                if (!current.isEmpty()) {
+                    alternatives.add(current);
+                    current = new ArrayList<>();
+                }
+                continue;
+            }
+            if (word.equals("AND") || word.equals("&")) {
+                continue;
+            }
+            boolean prefix = word.endsWith("*");
+            List<String> tokens = tokenize(prefix ? word.substring(0, word.length() - 1) : word);
+            for (int i = 0; i < tokens.size() && termCount < MAX_QUERY_TERMS; i++, termCount++) {
+                // "*" applies to the last token of the word, so "spring-bo*" is spring AND bo*
+                current.add(new Term(tokens.get(i), prefix && i == tokens.size() - 1));
+            }
+        }
+        if (!current.isEmpty()) {
+            alternatives.add(current);
+        }
+        return alternatives;
+    }
+
+    // Like post search, but '+' and '#' are kept so "c++" and "c#" stay distinct skills
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean wordChar = Character.isLetterOrDigit(c) || (start >= 0 && (c == '+' || c == '#'));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        rebuildExecutor.shutdown();
+    }
+
+    record Term(String text, boolean prefix) {
+    }
+
+    // Matching user ids, in ordinal order, with their text scores
+    private record Candidates(long[] userIds, int[] scores) {
+    }
+
+    /**
+     * Each user keeps one ordinal for life, so an updated profile only
+     * removes its old terms from their bitmaps and adds the new ones; unlike
+     * the post index nothing goes stale and no compaction is needed.
+     */
+    private static class Index {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final NavigableMap<String, RoaringBitmap> skillTerms = new TreeMap<>();
+        private final NavigableMap<String, RoaringBitmap> headlineTerms = new TreeMap<>();
+        private final Map<Long, Integer> ordinalByUserId = new HashMap<>();
+        private long[] userIds = new long[1024];
+        private String[][] skillsByOrdinal = new String[1024][];
+        private String[][] headlineByOrdinal = new String[1024][];
+        private int size;
+
+        void put(long userId, String skills, String headline) {
+            String[] skillTokens = new LinkedHashSet<>(tokenize(skills)).toArray(new String[0]);
+            String[] headlineTokens = new LinkedHashSet<>(tokenize(headline)).toArray(new String[0]);
+
+            lock.writeLock().lock();
+            try {
+                Integer existing = ordinalByUserId.get(userId);
+                int ordinal;
+                if (existing != null) {
+                    ordinal = existing;
+                    removeAll(skillTerms, skillsByOrdinal[ordinal], ordinal);
+                    removeAll(headlineTerms, headlineByOrdinal[ordinal], ordinal);
+                } else {
+                    if (size == userIds.length) {
+                        userIds = Arrays.copyOf(userIds, size * 2);
+                        skillsByOrdinal = Arrays.copyOf(skillsByOrdinal, size * 2);
+                        headlineByOrdinal = Arrays.copyOf(headlineByOrdinal, size * 2);
+                    }
+                    ordinal = size++;
+                    userIds[ordinal] = userId;
+                    ordinalByUserId.put(userId, ordinal);
+                }
+                skillsByOrdinal[ordinal] = skillTokens;
+                headlineByOrdinal[ordinal] = headlineTokens;
+                for (String token : skillTokens) {
+                    skillTerms.computeIfAbsent(token, t -> new RoaringBitmap()).add(ordinal);
+                }
+                for (String token : headlineTokens) {
+                    headlineTerms.computeIfAbsent(token, t -> new RoaringBitmap()).add(ordinal);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private static void removeAll(Map<String, RoaringBitmap> terms, String[] tokens, int ordinal) {
+            for (String token : tokens) {
+                RoaringBitmap postings = terms.get(token);
+                if (postings != null) {
+                    postings.remove(ordinal);
+                    if (postings.isEmpty()) {
+                        terms.remove(token);
+                    }
+                }
+            }
+        }
+
+        int profileCount() {
+            lock.readLock().lock();
+            try {
+                return size;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int termCount() {
+            lock.readLock().lock();
+            try {
+                return skillTerms.size() + headlineTerms.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Candidates match(List<List<Term>> alternatives, Long viewerId, int maxCandidates) {
+            lock.readLock().lock();
+            try {
+                Map<Term, RoaringBitmap> skillMatches = new HashMap<>();
+                Map<Term, RoaringBitmap> headlineMatches = new HashMap<>();
+                RoaringBitmap matches = new RoaringBitmap();
+                for (List<Term> terms : alternatives) {
+                    RoaringBitmap all = null;
+                    for (Term term : terms) {
+                        RoaringBitmap skill = skillMatches.computeIfAbsent(term, t -> lookup(skillTerms, t));
+                        RoaringBitmap headline = headlineMatches.computeIfAbsent(term, t -> lookup(headlineTerms, t));
+                        RoaringBitmap either = skill.or(headline);
+                        all = all == null ? either : all.and(either);
+                        if (all.isEmpty()) {
+                            break;
+                        }
+                    }
+                    matches = matches.or(all);
+                }
+                Integer viewerOrdinal = viewerId != null ? ordinalByUserId.get(viewerId) : null;
+                if (viewerOrdinal != null) {
+                    matches.remove(viewerOrdinal);
+                }
+
+                int[] ordinals = matches.toArray();
+                int[] scores = new int[ordinals.length];
+                for (int i = 0; i < ordinals.length; i++) {
+                    for (Term term : skillMatches.keySet()) {
+                        if (skillMatches.get(term).contains(ordinals[i])) {
+                            scores[i] += SKILL_WEIGHT;
+                        }
+                        if (headlineMatches.get(term).contains(ordinals[i])) {
+                            scores[i] += HEADLINE_WEIGHT;
+                        }
+                    }
+                }
+                if (ordinals.length > maxCandidates) {
+                    // Keep the best-scoring candidates, breaking ties by ordinal
+                    long[] byScore = new long[ordinals.length];
+                    for (int i = 0; i < ordinals.length; i++) {
+                        byScore[i] = (long) scores[i] << 32 | (Integer.MAX_VALUE - i);
+                    }
+                    Arrays.sort(byScore);
+                    int[] kept = new int[maxCandidates];
+                    for (int i = 0; i < maxCandidates; i++) {
+                        kept[i] = Integer.MAX_VALUE - (int) byScore[byScore.length - 1 - i];
+                    }
+                    Arrays.sort(kept);
+                    int[] keptOrdinals = new int[maxCandidates];
+                    int[] keptScores = new int[maxCandidates];
+                    for (int i = 0; i < maxCandidates; i++) {
+                        keptOrdinals[i] = ordinals[kept[i]];
+                        keptScores[i] = scores[kept[i]];
+                    }
+                    ordinals = keptOrdinals;
+                    scores = keptScores;
+                }
+
+                long[] ids = new long[ordinals.length];
+                for (int i = 0; i < ordinals.length; i++) {
+                    ids[i] = userIds[ordinals[i]];
+                }
+                return new Candidates(ids, scores);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private static RoaringBitmap lookup(NavigableMap<String, RoaringBitmap> terms, Term term) {
+            if (!term.prefix()) {
+                RoaringBitmap postings = terms.get(term.text());
+                return postings != null ? postings : new RoaringBitmap();
+            }
+            // Union of the terms starting with the prefix, bounded by their postings to keep one query cheap
+            return RoaringBitmap.orAll(PrefixExpansion.select(
+                    terms.subMap(term.text(), true, term.text() + Character.MAX_VALUE, false).values(),
+                    RoaringBitmap::cardinality, MAX_PREFIX_POSTINGS));
+        }
+    }
+}
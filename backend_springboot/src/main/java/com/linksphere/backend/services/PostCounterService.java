@@ -0,0 +1,305 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.models.Post;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind accumulator for the likes/comments/saves counters on posts.
+ *
+ * Increments land in striped LongAdders keyed by post id and are flushed to
+ * MySQL in one JDBC batch per interval, so a viral post no longer serializes
+ * every like on its posts row lock. Deltas that cannot be flushed at shutdown
+ * are written to a journal file and replayed on the next start; the journal
+ * is deleted once the replayed deltas have been flushed.
+ *
+ * Reads overlay the deltas not yet in the database. The generation swap and
+ * the batch commit both happen under the overlay write lock, so a reader
+ * never counts a delta both in the row and in the overlay.
+ */
+@Service
+public class PostCounterService {
+    private static final Logger logger = LoggerFactory.getLogger(PostCounterService.class);
+
+    public enum Counter { LIKES, COMMENTS, SAVES }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "post-counter-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean earlyFlushScheduled = new AtomicBoolean();
+
+    private volatile Generation current = new Generation();
+    // Generation being written to the database; still overlaid on reads until committed
+    private volatile Generation flushing;
+    // Held for reading while the overlay is summed, and for writing while it changes shape
+    private final ReentrantReadWriteLock overlayLock = new ReentrantReadWriteLock();
+    // The journal replayed at startup, deleted once its deltas are in the database
+    private volatile boolean journalReplayPending;
+
+    @Value("${app.counters.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.counters.max-pending-posts:10000}")
+    private int maxPendingPosts;
+
+    @Value("${app.counters.journal-file:counters.journal}")
+    private String journalFile;
+
+    public PostCounterService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        replayJournal();
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void increment(Long postId, Counter counter, long delta) {
+        while (true) {
+            Generation generation = current;
+            generation.writers.increment();
+            try {
+                if (generation.sealed) {
+                    continue; // Flusher swapped generations under us; retry on the new one
+                }
+                generation.deltas.computeIfAbsent(postId, id -> new Deltas()).add(counter, delta);
+                if (generation.deltas.size() >= maxPendingPosts && earlyFlushScheduled.compareAndSet(false, true)) {
+                    flushExecutor.execute(this::flushQuietly);
+                }
+                return;
+            } finally {
+                generation.writers.decrement();
+            }
+        }
+    }
+
+    // Adds deltas that are not yet in the database so callers read their own writes
+    public void applyPending(Post post) {
+        if (post.getId() == null) {
+            return;
+        }
+        long likes = 0, comments = 0, saves = 0;
+        overlayLock.readLock().lock();
+        try {
+            for (Generation generation : new Generation[] { current, flushing }) {
+                if (generation == null) {
+                    continue;
+                }
+                Deltas deltas = generation.deltas.get(post.getId());
+                if (deltas != null) {
+                    likes += deltas.likes.sum();
+                    comments += deltas.comments.sum();
+                    saves += deltas.saves.sum();
+                }
+            }
+        } finally {
+            overlayLock.readLock().unlock();
+        }
+        post.setLikesCount((int) (post.getLikesCount() + likes));
+        post.setCommentsCount((int) (post.getCommentsCount() + comments));
+        post.setSavesCount((int) (post.getSavesCount() + saves));
+    }
+
+    public synchronized void flush() {
+        earlyFlushScheduled.set(false);
+        Generation sealed = current;
+        if (sealed.deltas.isEmpty()) {
+            return;
+        }
+        overlayLock.writeLock().lock();
+        try {
+            flushing = sealed;
+            current = new Generation();
+        } finally {
+            overlayLock.writeLock().unlock();
+        }
+        sealed.sealed = true;
+        // Wait for increments that entered before the seal to finish
+        while (sealed.writers.sum() != 0) {
+            Thread.onSpinWait();
+        }
+
+        // Sorted by post id so concurrent flushers on other nodes lock rows in the same order
+        Map<Long, long[]> snapshot = new TreeMap<>();
+        sealed.deltas.forEach((postId, deltas) -> {
+            long[] values = deltas.snapshot();
+            if (values[0] != 0 || values[1] != 0 || values[2] != 0) {
+                snapshot.put(postId, values);
+            }
+        });
+
+        boolean flushed = false;
+        try {
+            writeBatch(snapshot);
+            flushed = true;
+            logger.debug("Flushed counter deltas for {} posts", snapshot.size());
+        } catch (Exception e) {
+            logger.error("Error flushing counter deltas, retrying next interval: {}", e.getMessage(), e);
+        } finally {
+            // writeBatch takes the write lock just before committing, so the overlay goes in the same step
+            if (!overlayLock.isWriteLockedByCurrentThread()) {
+                overlayLock.writeLock().lock();
+            }
+            flushing = null;
+            overlayLock.writeLock().unlock();
+        }
+        if (!flushed) {
+            // Only now that flushing is cleared, or readers would see these deltas twice
+            snapshot.forEach(this::restore);
+        } else if (journalReplayPending) {
+            // Restored deltas always land in the next generation, so the first successful flush carries them
+            deleteJournal();
+        }
+    }
+
+    // Leaves the overlay write lock held once the batch is ready to commit; flush releases it
+    private void writeBatch(Map<Long, long[]> snapshot) {
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(snapshot.size());
+        snapshot.forEach((postId, values) -> args.add(new Object[] { values[0], values[1], values[2], postId }));
+        String sql = "UPDATE posts SET likes_count = likes_count + ?, comments_count = comments_count + ?, " +
+                "saves_count = saves_count + ? WHERE id = ?";
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(sql, args);
+            overlayLock.writeLock().lock();
+        });
+    }
+
+    private void restore(Long postId, long[] values) {
+        increment(postId, Counter.LIKES, values[0]);
+        increment(postId, Counter.COMMENTS, values[1]);
+        increment(postId, Counter.SAVES, values[2]);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Unexpected error in counter flush: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        if (!current.deltas.isEmpty()) {
+            writeJournal();
+        }
+    }
+
+    private void writeJournal() {
+        Path path = Paths.get(journalFile);
+        // An unflushed replay is part of current, so its journal is rewritten rather than appended to
+        StandardOpenOption mode = journalReplayPending ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            for (Map.Entry<Long, Deltas> entry : current.deltas.entrySet()) {
+                long[] values = entry.getValue().snapshot();
+                writer.write(entry.getKey() + "," + values[0] + "," + values[1] + "," + values[2]);
+                writer.newLine();
+            }
+            logger.warn("Wrote {} unflushed counter deltas to {}", current.deltas.size(), path.toAbsolutePath());
+        } catch (IOException e) {
+            logger.error("Failed to write counter journal, deltas lost: {}", e.getMessage(), e);
+        }
+    }
+
+    private void replayJournal() {
+        Path path = Paths.get(journalFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        Map<Long, long[]> replayed = new TreeMap<>();
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] parts = line.split(",");
+                if (parts.length != 4) {
+                    continue;
+                }
+                long[] values = replayed.computeIfAbsent(Long.parseLong(parts[0]), id -> new long[3]);
+                for (int i = 0; i < 3; i++) {
+                    values[i] += Long.parseLong(parts[i + 1]);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Left in place untouched; nothing from it has been applied
+            logger.error("Failed to replay counter journal: {}", e.getMessage(), e);
+            return;
+        }
+        if (replayed.isEmpty()) {
+            deleteJournal();
+            return;
+        }
+        journalReplayPending = true;
+        replayed.forEach(this::restore);
+        logger.info("Replayed counter deltas for {} posts from {}", replayed.size(), path.toAbsolutePath());
+    }
+
+    private void deleteJournal() {
+        try {
+            Files.deleteIfExists(Paths.get(journalFile));
+            journalReplayPending = false;
+        } catch (IOException e) {
+            logger.error("Failed to delete counter journal after replaying it: {}", e.getMessage(), e);
+        }
+    }
+
+    private static class Generation {
+        final Map<Long, Deltas> deltas = new ConcurrentHashMap<>();
+        final LongAdder writers = new LongAdder();
+        volatile boolean sealed;
+    }
+
+    private static class Deltas {
+        final LongAdder likes = new LongAdder();
+        final LongAdder comments = new LongAdder();
+        final LongAdder saves = new LongAdder();
+
+        void add(Counter counter, long delta) {
+            switch (counter) {
+                case LIKES -> likes.add(delta);
+                case COMMENTS -> comments.add(delta);
+                case SAVES -> saves.add(delta);
+            }
+        }
+
+        long[] snapshot() {
+            return new long[] { likes.sum(), comments.sum(), saves.sum() };
+        }
+    }
+}
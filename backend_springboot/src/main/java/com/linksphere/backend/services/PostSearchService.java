@@ -0,0 +1,512 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.models.Post;
+import com.linksphere.backend.util.PrefixExpansion;
+import com.linksphere.backend.util.RebuildExecutor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over post descriptions and usernames.
+ *
+ * Every query token must match (the last token also matches as a prefix, so
+ * the search box works while the user is typing). Matches are scored by
+ * tf-idf relevance plus an exponentially decaying recency bonus and the top
+ * results are selected with a bounded heap. Only the final page of post ids
+ * is looked up in MySQL.
+ */
+@Service
+public class PostSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchService.class);
+    private static final int USERNAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    // Postings a prefix may expand to; past this the rarest matching terms are left out
+    private static final int MAX_PREFIX_POSTINGS = 1 << 18;
+    private static final int PAIRWISE_UNION_MAX = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RebuildExecutor rebuildExecutor = new RebuildExecutor("post-search-rebuild");
+
+    private volatile Index index = new Index();
+    private volatile boolean ready;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // Changes made while a rebuild is scanning the table, replayed onto the new index
+    private List<Post> pendingDuringRebuild;
+
+    @Value("${app.search.recency-half-life-hours:72}")
+    private double recencyHalfLifeHours;
+
+    @Value("${app.search.recency-weight:1.0}")
+    private double recencyWeight;
+
+    @Value("${app.search.max-results:1000}")
+    private int maxResults;
+
+    public PostSearchService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuildExecutor.retryUntilDone(this::rebuild);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean rebuild() {
+        logger.info("Rebuilding post search index");
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        try {
+            Index rebuilt = new Index();
+            jdbcTemplate.query("SELECT id, username, description, created_at FROM posts ORDER BY id", rs -> {
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                rebuilt.add(rs.getLong("id"), rs.getString("username"), rs.getString("description"),
+                        createdAt != null ? createdAt.toLocalDateTime() : null);
+            });
+            synchronized (this) {
+                for (Post change : pendingDuringRebuild) {
+                    if (change.getDescription() == null && change.getUsername() == null) {
+                        rebuilt.remove(change.getId());
+                    } else {
+                        rebuilt.add(change.getId(), change.getUsername(), change.getDescription(), change.getCreatedAt());
+                    }
+                }
+                pendingDuringRebuild = null;
+                index = rebuilt;
+            }
+            ready = true;
+            logger.info("Post search index rebuilt with {} posts and {} terms", rebuilt.liveCount(), rebuilt.termCount());
+            return true;
+        } catch (Exception e) {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+            }
+            logger.error("Error rebuilding post search index: {}", e.getMessage(), e);
+            return false;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // Called for both created and updated posts; an existing entry is replaced
+    public void index(Post post) {
+        synchronized (this) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(post);
+            }
+        }
+        index.add(post.getId(), post.getUsername(), post.getDescription(), post.getCreatedAt());
+        compactIfFragmented();
+    }
+
+    public void remove(Long postId) {
+        synchronized (this) {
+            if (pendingDuringRebuild != null) {
+                Post tombstone = new Post();
+                tombstone.setId(postId);
+                pendingDuringRebuild.add(tombstone);
+            }
+        }
+        index.remove(postId);
+        compactIfFragmented();
+    }
+
+    // Stale ordinals from updates and deletes stay in the posting lists until the next rebuild
+    private void compactIfFragmented() {
+        Index current = index;
+        int deletedCount = current.deletedCount();
+        if (deletedCount > 1024 && deletedCount > current.liveCount() && rebuilding.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Returns the post ids for one page of results, best match first.
+     */
+    public long[] search(String query, int page, int size) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new long[0];
+        }
+        int offset = page * size;
+        int k = Math.min(offset + size, maxResults);
+        if (offset >= k) {
+            return new long[0];
+        }
+        long[] ranked = index.topK(tokens, k, recencyHalfLifeHours, recencyWeight);
+        if (offset >= ranked.length) {
+            return new long[0];
+        }
+        return Arrays.copyOfRange(ranked, offset, Math.min(ranked.length, offset + size));
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        rebuildExecutor.shutdown();
+    }
+
+    /**
+     * Posting lists hold internal document ordinals, which only ever grow, so
+     * adding a document is an append. Updated posts get a fresh ordinal and the
+     * old one is marked deleted.
+     */
+    private static class Index {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final NavigableMap<String, Postings> terms = new TreeMap<>();
+        private final Map<Long, Integer> ordinalByPostId = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private long[] postIds = new long[1024];
+        private long[] createdAtSeconds = new long[1024];
+        private int size;
+
+        void add(long postId, String username, String description, LocalDateTime createdAt) {
+            Map<String, Integer> weights = new HashMap<>();
+            for (String token : tokenize(username)) {
+                weights.merge(token, USERNAME_WEIGHT, Integer::sum);
+            }
+            for (String token : tokenize(description)) {
+                weights.merge(token, DESCRIPTION_WEIGHT, Integer::sum);
+            }
+
+            lock.writeLock().lock();
+            try {
+                Integer previous = ordinalByPostId.get(postId);
+                if (previous != null) {
+                    deleted.set(previous);
+                }
+                if (size == postIds.length) {
+                    postIds = Arrays.copyOf(postIds, size * 2);
+                    createdAtSeconds = Arrays.copyOf(createdAtSeconds, size * 2);
+                }
+                int ordinal = size++;
+                postIds[ordinal] = postId;
+                createdAtSeconds[ordinal] = createdAt != null ? createdAt.toEpochSecond(ZoneOffset.UTC) : 0L;
+                ordinalByPostId.put(postId, ordinal);
+                for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                    terms.computeIfAbsent(entry.getKey(), t -> new Postings()).append(ordinal, entry.getValue());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(long postId) {
+            lock.writeLock().lock();
+            try {
+                Integer ordinal = ordinalByPostId.remove(postId);
+                if (ordinal != null) {
+                    deleted.set(ordinal);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int liveCount() {
+            lock.readLock().lock();
+            try {
+                return ordinalByPostId.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int deletedCount() {
+            lock.readLock().lock();
+            try {
+                return deleted.cardinality();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int termCount() {
+            lock.readLock().lock();
+            try {
+                return terms.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long[] topK(List<String> tokens, int k, double halfLifeHours, double recencyWeight) {
+            lock.readLock().lock();
+            try {
+                int liveDocs = Math.max(1, ordinalByPostId.size());
+                Scored matches = null;
+                for (int i = 0; i < tokens.size(); i++) {
+                    boolean prefix = i == tokens.size() - 1;
+                    Scored termMatches = match(tokens.get(i), prefix, liveDocs);
+                    matches = matches == null ? termMatches : matches.intersect(termMatches);
+                    if (matches.size == 0) {
+                        return new long[0];
+                    }
+                }
+
+                long now = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+                TopKHeap heap = new TopKHeap(k);
+                for (int i = 0; i < matches.size; i++) {
+                    int doc = matches.docs[i];
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    double ageHours = Math.max(0, now - createdAtSeconds[doc]) / 3600.0;
+                    double recency = Math.pow(0.5, ageHours / halfLifeHours);
+                    heap.offer(doc, matches.scores[i] + recencyWeight * recency);
+                }
+                int[] docs = heap.drainDescending();
+                long[] result = new long[docs.length];
+                for (int i = 0; i < docs.length; i++) {
+                    result[i] = postIds[docs[i]];
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private Scored match(String token, boolean prefix, int liveDocs) {
+            if (!prefix) {
+                Postings postings = terms.get(token);
+                return postings == null ? new Scored(0) : postings.score(liveDocs);
+            }
+            // Union of the terms starting with the token, bounded by their postings to keep one keystroke cheap
+            List<Postings> expansions = PrefixExpansion.select(
+                    terms.subMap(token, true, token + Character.MAX_VALUE, false).values(), postings -> postings.size,
+                    MAX_PREFIX_POSTINGS);
+            List<Scored> scored = new ArrayList<>(expansions.size());
+            for (Postings postings : expansions) {
+                scored.add(postings.score(liveDocs));
+            }
+            return Scored.unionAll(scored);
+        }
+    }
+
+    private static class Postings {
+        private int[] docs = new int[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        void append(int doc, int weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        Scored score(int liveDocs) {
+            double idf = Math.log(1.0 + (double) liveDocs / size);
+            Scored scored = new Scored(size);
+            System.arraycopy(docs, 0, scored.docs, 0, size);
+            for (int i = 0; i < size; i++) {
+                scored.scores[i] = weights[i] * idf;
+            }
+            scored.size = size;
+            return scored;
+        }
+    }
+
+    // Sorted doc ordinals with a parallel score array
+    private static class Scored {
+        final int[] docs;
+        final double[] scores;
+        int size;
+
+        Scored(int capacity) {
+            docs = new int[capacity];
+            scores = new double[capacity];
+        }
+
+        Scored intersect(Scored other) {
+            Scored out = new Scored(Math.min(size, other.size));
+            int i = 0, j = 0;
+            while (i < size && j < other.size) {
+                if (docs[i] < other.docs[j]) {
+                    i++;
+                } else if (docs[i] > other.docs[j]) {
+                    j++;
+                } else {
+                    out.docs[out.size] = docs[i];
+                    out.scores[out.size++] = scores[i++] + other.scores[j++];
+                }
+            }
+            return out;
+        }
+
+        Scored union(Scored other) {
+            Scored out = new Scored(size + other.size);
+            int i = 0, j = 0;
+            while (i < size || j < other.size) {
+                if (j >= other.size || (i < size && docs[i] < other.docs[j])) {
+                    out.docs[out.size] = docs[i];
+                    out.scores[out.size++] = scores[i++];
+                } else if (i >= size || docs[i] > other.docs[j]) {
+                    out.docs[out.size] = other.docs[j];
+                    out.scores[out.size++] = other.scores[j++];
+                } else {
+                    out.docs[out.size] = docs[i];
+                    out.scores[out.size++] = Math.max(scores[i++], other.scores[j++]);
+                }
+            }
+            return out;
+        }
+
+        // A doc in several lists keeps its best score. A few lists are merged pairwise; for many, a merge
+        // per list would copy the growing result each time, so all entries are sorted once instead
+        static Scored unionAll(List<Scored> parts) {
+            if (parts.size() <= PAIRWISE_UNION_MAX) {
+                Scored union = new Scored(0);
+                for (Scored part : parts) {
+                    union = union.union(part);
+                }
+                return union;
+            }
+            int total = 0;
+            for (Scored part : parts) {
+                total += part.size;
+            }
+            // doc in the high half, position in the flattened scores in the low half
+            long[] keys = new long[total];
+            double[] flatScores = new double[total];
+            int n = 0;
+            for (Scored part : parts) {
+                for (int i = 0; i < part.size; i++, n++) {
+                    keys[n] = (long) part.docs[i] << 32 | n;
+                    flatScores[n] = part.scores[i];
+                }
+            }
+            Arrays.sort(keys);
+            Scored out = new Scored(total);
+            for (long key : keys) {
+                int doc = (int) (key >>> 32);
+                double score = flatScores[(int) key];
+                if (out.size > 0 && out.docs[out.size - 1] == doc) {
+                    out.scores[out.size - 1] = Math.max(out.scores[out.size - 1], score);
+                } else {
+                    out.docs[out.size] = doc;
+                    out.scores[out.size++] = score;
+                }
+            }
+            return out;
+        }
+    }
+
+    // Fixed-size min-heap over primitive arrays; the root is the weakest kept match
+    private static class TopKHeap {
+        private final int[] docs;
+        private final double[] scores;
+        private int size;
+
+        TopKHeap(int k) {
+            docs = new int[k];
+            scores = new double[k];
+        }
+
+        void offer(int doc, double score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        int[] drainDescending() {
+            int[] out = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                out[i] = docs[0];
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return out;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[i] >= scores[parent]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int smallest = i;
+                if (left < size && scores[left] < scores[smallest]) {
+                    smallest = left;
+                }
+                if (left + 1 < size && scores[left + 1] < scores[smallest]) {
+                    smallest = left + 1;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int doc = docs[a];
+            docs[a] = docs[b];
+            docs[b] = doc;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -1,74 +1,94 @@
 package com.linksphere.backend.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.linksphere.backend.dto.PageResponse;
 import com.linksphere.backend.dto.PostRequest;
+import com.linksphere.backend.mapper.CommentMapper;
 import com.linksphere.backend.mapper.PostMapper;
 import com.linksphere.backend.models.Comment;
 import com.linksphere.backend.models.Post;
-import com.linksphere.backend.models.User;
+import com.linksphere.backend.util.PageCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 @Service
 public class PostService {
     private static final Logger logger = LoggerFactory.getLogger(PostService.class);
     private final JdbcTemplate jdbcTemplate;
-    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final TimelineService timelineService;
+    private final PostCounterService postCounterService;
+    private final PostSearchService postSearchService;
+    private final MediaStorageService mediaStorageService;
+    // Overlays counter deltas that have not been flushed to the posts row yet
+    private final RowMapper<Post> postRowMapper = new RowMapper<>() {
+        private final PostMapper postMapper = new PostMapper();
+
+        @Override
+        public Post mapRow(ResultSet rs, int rowNum) throws SQLException {
+            Post post = postMapper.mapRow(rs, rowNum);
+            postCounterService.applyPending(post);
+            return post;
+        }
+    };
 
-    @Value("${app.upload.dir:uploads}")
-    private String uploadDir;
+    @Value("${app.feed.default-page-size:20}")
+    private int defaultPageSize;
 
-    public PostService(JdbcTemplate jdbcTemplate, UserService userService) {
-        this.jdbcTemplate = jdbcTemplate;
-        this.userService = userService;
-    }
+    @Value("${app.feed.max-page-size:100}")
+    private int maxPageSize;
 
-    public String uploadMedia(MultipartFile file) {
-        try {
-            logger.info("Starting media upload for file: {}", file.getOriginalFilename());
-            // Create uploads directory if it doesn't exist
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-                logger.info("Created upload directory: {}", uploadPath);
-            }
+    @Value("${app.comments.default-page-size:20}")
+    private int defaultCommentPageSize;
 
-            // Generate unique filename
-            String filename = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            Path filePath = uploadPath.resolve(filename);
+    @Value("${app.comments.max-page-size:50}")
+    private int maxCommentPageSize;
 
-            // Save file
-            Files.copy(file.getInputStream(), filePath);
-            logger.info("Successfully uploaded file to: {}", filePath);
+    @Value("${app.comments.max-batch-posts:50}")
+    private int maxCommentBatchPosts;
 
-            // Return relative path
-            return "/uploads/" + filename;
-        } catch (IOException e) {
-            logger.error("Failed to upload media file", e);
-            throw new RuntimeException("Failed to store file", e);
-        }
+    public PostService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                       TimelineService timelineService, PostCounterService postCounterService,
+                       PostSearchService postSearchService, MediaStorageService mediaStorageService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.timelineService = timelineService;
+        this.postCounterService = postCounterService;
+        this.postSearchService = postSearchService;
+        this.mediaStorageService = mediaStorageService;
     }
 
-    public Post createPost(String email, PostRequest request) {
-        logger.info("Creating post for user with email: {}", email);
-        try {
-            User user = userService.findByEmail(email);
-            if (user == null) {
-                logger.error("User not found for email: {}", email);
-                throw new RuntimeException("User not found");
-            }
+    public String uploadMedia(MultipartFile file) {
+        return mediaStorageService.store(file);
+    }
 
+    public Post createPost(Long userId, String username, PostRequest request) {
+        logger.info("Creating post for user: {}", userId);
+        try {
             logger.info("Request details - Description: {}, MediaUrls: {}, MediaTypes: {}",
                     request.getDescription(), request.getMediaUrls(), request.getMediaTypes());
 
@@ -76,32 +96,35 @@ public class PostService {
             String profilePicture = null;
             try {
                 String profileSql = "SELECT profile_picture FROM profiles WHERE user_id = ?";
-                profilePicture = jdbcTemplate.queryForObject(profileSql, String.class, user.getId());
-                logger.info("Retrieved profile picture for user: {}", user.getId());
+                profilePicture = jdbcTemplate.queryForObject(profileSql, String.class, userId);
+                logger.info("Retrieved profile picture for user: {}", userId);
             } catch (Exception e) {
-                logger.warn("Could not retrieve profile picture for user: {}", user.getId());
+                logger.warn("Could not retrieve profile picture for user: {}", userId);
             }
 
             // Insert post with profile picture
             String sql = "INSERT INTO posts (user_id, username, profile_picture, description, media_urls, media_types, created_at, updated_at) " +
                     "VALUES (?, ?, ?, ?, ?, ?, NOW(), NOW())";
             jdbcTemplate.update(sql,
-                    user.getId(),
-                    user.getUsername(),
+                    userId,
+                    username,
                     profilePicture,
                     request.getDescription(),
                     request.getMediaUrls(),
                     request.getMediaTypes());
-            logger.info("Successfully inserted post for user: {}", user.getId());
+            logger.info("Successfully inserted post for user: {}", userId);
+            mediaStorageService.retain(request.getMediaUrls());
 
             // Retrieve created post
             String selectSql = "SELECT * FROM posts WHERE user_id = ? ORDER BY created_at DESC LIMIT 1";
-            Post createdPost = jdbcTemplate.queryForObject(selectSql, new PostMapper(), user.getId());
+            Post createdPost = jdbcTemplate.queryForObject(selectSql, postRowMapper, userId);
             if (createdPost != null) {
                 logger.info("Successfully retrieved created post with ID: {}", createdPost.getId());
+                timelineService.onPostCreated(createdPost);
+                postSearchService.index(createdPost);
                 return createdPost;
             } else {
-                logger.error("Failed to retrieve created post for user: {}", user.getId());
+                logger.error("Failed to retrieve created post for user: {}", userId);
                 throw new RuntimeException("Failed to retrieve created post");
             }
         } catch (Exception e) {
@@ -110,16 +133,11 @@ public class PostService {
         }
     }
 
-    public Post updatePost(Long postId, String email, PostRequest request) {
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
-        }
-
+    public Post updatePost(Long postId, Long userId, PostRequest request) {
         // Verify post ownership
-        String ownershipSql = "SELECT COUNT(*) FROM posts WHERE id = ? AND user_id = ?";
-        int count = jdbcTemplate.queryForObject(ownershipSql, Integer.class, postId, user.getId());
-        if (count == 0) {
+        String ownershipSql = "SELECT media_urls FROM posts WHERE id = ? AND user_id = ?";
+        List<String> previousMedia = jdbcTemplate.queryForList(ownershipSql, String.class, postId, userId);
+        if (previousMedia.isEmpty()) {
             throw new RuntimeException("Post not found or user not authorized");
         }
 
@@ -131,30 +149,36 @@ public class PostService {
                 request.getMediaTypes(),
                 LocalDateTime.now(),
                 postId);
+        mediaStorageService.retain(request.getMediaUrls());
+        mediaStorageService.release(previousMedia.get(0));
 
         // Return updated post
         String selectSql = "SELECT * FROM posts WHERE id = ?";
-        return jdbcTemplate.queryForObject(selectSql, new PostMapper(), postId);
+        Post updatedPost = jdbcTemplate.queryForObject(selectSql, postRowMapper, postId);
+        postSearchService.index(updatedPost);
+        return updatedPost;
     }
 
-    public void deletePost(Long postId, String email) {
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
-        }
+    public void deletePost(Long postId, Long userId) {
+        String mediaSql = "SELECT media_urls FROM posts WHERE id = ? AND user_id = ?";
+        List<String> media = jdbcTemplate.queryForList(mediaSql, String.class, postId, userId);
 
         String sql = "DELETE FROM posts WHERE id = ? AND user_id = ?";
-        int rowsAffected = jdbcTemplate.update(sql, postId, user.getId());
+        int rowsAffected = jdbcTemplate.update(sql, postId, userId);
         if (rowsAffected == 0) {
             throw new RuntimeException("Post not found or user not authorized");
         }
+        postSearchService.remove(postId);
+        // Unreferenced files are removed by the media sweep after the grace period
+        mediaStorageService.release(media.isEmpty() ? null : media.get(0));
     }
 
     public List<Post> getAllPosts() {
-        logger.info("Fetching all posts");
+        logger.info("Fetching latest {} posts", maxPageSize);
         try {
-            String sql = "SELECT * FROM posts ORDER BY created_at DESC";
-            List<Post> posts = jdbcTemplate.query(sql, new PostMapper());
+            // Bounded: clients that need older posts page through /feed
+            String sql = "SELECT * FROM posts ORDER BY created_at DESC, id DESC LIMIT ?";
+            List<Post> posts = jdbcTemplate.query(sql, postRowMapper, maxPageSize);
             logger.info("Successfully fetched {} posts", posts.size());
             return posts;
         } catch (Exception e) {
@@ -163,137 +187,248 @@ public class PostService {
         }
     }
 
-    public void likePost(Long postId, String email) {
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
+    public int resolvePageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    /**
+     * Writes one page of the home feed as {"items":[...],"nextCursor":...,"hasMore":...}.
+     * Rows are serialized straight from the ResultSet to the output stream, so the
+     * page is never materialized as a List. One extra row is fetched to detect hasMore.
+     */
+    public void streamFeed(String cursor, Integer limit, OutputStream out) throws IOException {
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
+        logger.info("Streaming feed page of {} posts after cursor: {}", pageSize, cursor);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("items");
+
+            FeedRowWriter rowWriter = new FeedRowWriter(generator, pageSize);
+            if (after == null) {
+                String sql = "SELECT * FROM posts ORDER BY created_at DESC, id DESC LIMIT ?";
+                jdbcTemplate.query(sql, rowWriter, pageSize + 1);
+            } else {
+                String sql = "SELECT * FROM posts WHERE (created_at, id) < (?, ?) " +
+                        "ORDER BY created_at DESC, id DESC LIMIT ?";
+                jdbcTemplate.query(sql, rowWriter,
+                        Timestamp.valueOf(after.getCreatedAt()), after.getId(), pageSize + 1);
+            }
+
+            generator.writeEndArray();
+            generator.writeStringField("nextCursor", rowWriter.hasMore ? rowWriter.lastCursor() : null);
+            generator.writeBooleanField("hasMore", rowWriter.hasMore);
+            generator.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class FeedRowWriter implements RowCallbackHandler {
+        // Let the servlet buffer decide when to flush instead of flushing per row
+        private final ObjectWriter postWriter = objectMapper.writerFor(Post.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        private final JsonGenerator generator;
+        private final int pageSize;
+        private int written;
+        private Post last;
+        private boolean hasMore;
+
+        FeedRowWriter(JsonGenerator generator, int pageSize) {
+            this.generator = generator;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (written == pageSize) {
+                hasMore = true;
+                return;
+            }
+            Post post = postRowMapper.mapRow(rs, written);
+            try {
+                postWriter.writeValue(generator, post);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            last = post;
+            written++;
         }
 
+        String lastCursor() {
+            return last == null ? null : PageCursor.encode(last.getCreatedAt(), last.getId());
+        }
+    }
+
+    public List<Post> findPostsInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.length, "?"));
+        Object[] args = Arrays.stream(ids).boxed().toArray();
+        List<Post> rows = jdbcTemplate.query("SELECT * FROM posts WHERE id IN (" + placeholders + ")",
+                postRowMapper, args);
+        Map<Long, Post> byId = new HashMap<>();
+        for (Post post : rows) {
+            byId.put(post.getId(), post);
+        }
+        // Posts deleted since their ids were collected simply drop out
+        List<Post> posts = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Post post = byId.get(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    public void likePost(Long postId, Long userId) {
         // Check if already liked
         String checkSql = "SELECT COUNT(*) FROM post_likes WHERE post_id = ? AND user_id = ?";
-        int count = jdbcTemplate.queryForObject(checkSql, Integer.class, postId, user.getId());
+        int count = jdbcTemplate.queryForObject(checkSql, Integer.class, postId, userId);
         if (count > 0) {
             return; // Already liked
         }
 
         // Add like
         String sql = "INSERT INTO post_likes (post_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, postId, user.getId());
+        jdbcTemplate.update(sql, postId, userId);
 
-        // Update likes count
-        String updateSql = "UPDATE posts SET likes_count = likes_count + 1 WHERE id = ?";
-        jdbcTemplate.update(updateSql, postId);
+        // Update likes count (write-behind)
+        postCounterService.increment(postId, PostCounterService.Counter.LIKES, 1);
     }
 
-    public void unlikePost(Long postId, String email) {
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
-        }
-
+    public void unlikePost(Long postId, Long userId) {
         // Remove like
         String sql = "DELETE FROM post_likes WHERE post_id = ? AND user_id = ?";
-        int rowsAffected = jdbcTemplate.update(sql, postId, user.getId());
+        int rowsAffected = jdbcTemplate.update(sql, postId, userId);
 
         if (rowsAffected > 0) {
-            // Update likes count
-            String updateSql = "UPDATE posts SET likes_count = likes_count - 1 WHERE id = ?";
-            jdbcTemplate.update(updateSql, postId);
+            // Update likes count (write-behind)
+            postCounterService.increment(postId, PostCounterService.Counter.LIKES, -1);
         }
     }
 
-    public void savePost(Long postId, String email) {
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
-        }
-
+    public void savePost(Long postId, Long userId) {
         // Check if already saved
         String checkSql = "SELECT COUNT(*) FROM post_saves WHERE post_id = ? AND user_id = ?";
-        int count = jdbcTemplate.queryForObject(checkSql, Integer.class, postId, user.getId());
+        int count = jdbcTemplate.queryForObject(checkSql, Integer.class, postId, userId);
         if (count > 0) {
             return; // Already saved
         }
 
         // Add save
         String sql = "INSERT INTO post_saves (post_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, postId, user.getId());
+        jdbcTemplate.update(sql, postId, userId);
 
-        // Update saves count
-        String updateSql = "UPDATE posts SET saves_count = saves_count + 1 WHERE id = ?";
-        jdbcTemplate.update(updateSql, postId);
+        // Update saves count (write-behind)
+        postCounterService.increment(postId, PostCounterService.Counter.SAVES, 1);
     }
 
-    public void unsavePost(Long postId, String email) {
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
-        }
-
+    public void unsavePost(Long postId, Long userId) {
         // Remove save
         String sql = "DELETE FROM post_saves WHERE post_id = ? AND user_id = ?";
-        int rowsAffected = jdbcTemplate.update(sql, postId, user.getId());
+        int rowsAffected = jdbcTemplate.update(sql, postId, userId);
 
         if (rowsAffected > 0) {
-            // Update saves count
-            String updateSql = "UPDATE posts SET saves_count = saves_count - 1 WHERE id = ?";
-            jdbcTemplate.update(updateSql, postId);
+            // Update saves count (write-behind)
+            postCounterService.increment(postId, PostCounterService.Counter.SAVES, -1);
         }
     }
 
-    public List<Comment> getComments(Long postId) {
-        String sql = "SELECT * FROM comments WHERE post_id = ? ORDER BY created_at DESC";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Comment comment = new Comment();
-            comment.setId(rs.getLong("id"));
-            comment.setPostId(rs.getLong("post_id"));
-            comment.setUserId(rs.getLong("user_id"));
-            comment.setUsername(rs.getString("username"));
-            comment.setContent(rs.getString("content"));
-            comment.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-            return comment;
-        }, postId);
+    public PageResponse<Comment> getComments(Long postId, String cursor, Integer limit) {
+        PageCursor before = PageCursor.decode(cursor);
+        int pageSize = resolveCommentPageSize(limit);
+
+        List<Comment> comments;
+        if (before == null) {
+            String sql = "SELECT * FROM comments WHERE post_id = ? ORDER BY created_at DESC, id DESC LIMIT ?";
+            comments = jdbcTemplate.query(sql, new CommentMapper(), postId, pageSize + 1);
+        } else {
+            String sql = "SELECT * FROM comments WHERE post_id = ? AND (created_at, id) < (?, ?) " +
+                    "ORDER BY created_at DESC, id DESC LIMIT ?";
+            comments = jdbcTemplate.query(sql, new CommentMapper(), postId,
+                    Timestamp.valueOf(before.getCreatedAt()), before.getId(), pageSize + 1);
+        }
+        return toCommentPage(comments, pageSize);
+    }
+
+    /**
+     * First page of comments for each of several posts, in one query, so a
+     * feed page does not need a comment request per card.
+     */
+    public Map<Long, PageResponse<Comment>> getFirstComments(List<Long> postIds, Integer limit) {
+        Map<Long, PageResponse<Comment>> pages = new LinkedHashMap<>();
+        if (postIds == null || postIds.isEmpty()) {
+            return pages;
+        }
+        List<Long> ids = postIds.stream().distinct().limit(maxCommentBatchPosts).toList();
+        int pageSize = resolveCommentPageSize(limit);
+
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT * FROM (" +
+                "SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.post_id ORDER BY c.created_at DESC, c.id DESC) AS rn " +
+                "FROM comments c WHERE c.post_id IN (" + placeholders + ")" +
+                ") ranked WHERE rn <= ? ORDER BY post_id, rn";
+        List<Object> args = new ArrayList<>(ids);
+        args.add(pageSize + 1);
+        List<Comment> rows = jdbcTemplate.query(sql, new CommentMapper(), args.toArray());
+
+        Map<Long, List<Comment>> byPost = new HashMap<>();
+        for (Comment comment : rows) {
+            byPost.computeIfAbsent(comment.getPostId(), id -> new ArrayList<>()).add(comment);
+        }
+        for (Long postId : ids) {
+            pages.put(postId, toCommentPage(byPost.getOrDefault(postId, new ArrayList<>()), pageSize));
+        }
+        return pages;
     }
 
-    public Comment addComment(Long postId, String email, String content) {
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
+    private int resolveCommentPageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultCommentPageSize;
         }
+        return Math.min(limit, maxCommentPageSize);
+    }
 
+    // Expects up to pageSize + 1 rows; the extra row only signals hasMore
+    private PageResponse<Comment> toCommentPage(List<Comment> comments, int pageSize) {
+        boolean hasMore = comments.size() > pageSize;
+        if (hasMore) {
+            comments = new ArrayList<>(comments.subList(0, pageSize));
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Comment last = comments.get(comments.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        return new PageResponse<>(comments, nextCursor, hasMore);
+    }
+
+    public Comment addComment(Long postId, Long userId, String username, String content) {
         // Add comment
         String sql = "INSERT INTO comments (post_id, user_id, username, content) VALUES (?, ?, ?, ?)";
-        jdbcTemplate.update(sql, postId, user.getId(), user.getUsername(), content);
+        jdbcTemplate.update(sql, postId, userId, username, content);
 
-        // Update comments count
-        String updateSql = "UPDATE posts SET comments_count = comments_count + 1 WHERE id = ?";
-        jdbcTemplate.update(updateSql, postId);
+        // Update comments count (write-behind)
+        postCounterService.increment(postId, PostCounterService.Counter.COMMENTS, 1);
 
         // Retrieve created comment
-        String selectSql = "SELECT * FROM comments WHERE post_id = ? AND user_id = ? ORDER BY created_at DESC LIMIT 1";
-        return jdbcTemplate.queryForObject(selectSql, (rs, rowNum) -> {
-            Comment comment = new Comment();
-            comment.setId(rs.getLong("id"));
-            comment.setPostId(rs.getLong("post_id"));
-            comment.setUserId(rs.getLong("user_id"));
-            comment.setUsername(rs.getString("username"));
-            comment.setContent(rs.getString("content"));
-            comment.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-            return comment;
-        }, postId, user.getId());
+        String selectSql = "SELECT * FROM comments WHERE post_id = ? AND user_id = ? ORDER BY created_at DESC, id DESC LIMIT 1";
+        return jdbcTemplate.queryForObject(selectSql, new CommentMapper(), postId, userId);
     }
 
-    public void deleteComment(Long postId, Long commentId, String email) {
-        User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new RuntimeException("User not found");
-        }
-
+    public void deleteComment(Long postId, Long commentId, Long userId) {
         // Verify comment ownership or post ownership
         String ownershipSql = "SELECT COUNT(*) FROM comments c " +
                 "LEFT JOIN posts p ON c.post_id = p.id " +
                 "WHERE c.id = ? AND (c.user_id = ? OR p.user_id = ?)";
-        int count = jdbcTemplate.queryForObject(ownershipSql, Integer.class, commentId, user.getId(), user.getId());
+        int count = jdbcTemplate.queryForObject(ownershipSql, Integer.class, commentId, userId, userId);
         if (count == 0) {
             throw new RuntimeException("Comment not found or user not authorized");
         }
@@ -302,12 +437,22 @@ public class PostService {
         jdbcTemplate.update(sql, commentId);
     }
 
-    public List<Post> searchPosts(String query) {
+    public List<Post> searchPosts(String query, int page, Integer size) {
         logger.info("Searching posts with query: {}", query);
+        int pageSize = resolvePageSize(size);
+        int safePage = Math.max(page, 0);
         try {
-            String searchQuery = "%" + query.toLowerCase() + "%";
-            String sql = "SELECT * FROM posts WHERE LOWER(description) LIKE ? OR LOWER(username) LIKE ? ORDER BY created_at DESC";
-            List<Post> posts = jdbcTemplate.query(sql, new PostMapper(), searchQuery, searchQuery);
+            List<Post> posts;
+            if (postSearchService.isReady()) {
+                posts = findPostsInOrder(postSearchService.search(query, safePage, pageSize));
+            } else {
+                // Index is still loading after startup; fall back to a bounded scan
+                String searchQuery = "%" + query.toLowerCase() + "%";
+                String sql = "SELECT * FROM posts WHERE LOWER(description) LIKE ? OR LOWER(username) LIKE ? " +
+                        "ORDER BY created_at DESC LIMIT ? OFFSET ?";
+                posts = jdbcTemplate.query(sql, postRowMapper, searchQuery, searchQuery,
+                        pageSize, safePage * pageSize);
+            }
             logger.info("Found {} posts matching the search query", posts.size());
             return posts;
         } catch (Exception e) {
@@ -0,0 +1,129 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.dto.ProfileCard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Username, picture and headline for any set of users, for hydrating the
+ * authors of list endpoints. Cards are served from an LRU + TTL cache and
+ * all misses of a call are loaded with a single IN query, so a page costs at
+ * most one query however many authors it has. ProfileService invalidates a
+ * card whenever the profile changes; the TTL bounds staleness for writes
+ * that bypass it.
+ */
+@Service
+public class ProfileCardService {
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, CachedCard> cards = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedCard> eldest) {
+            return size() > maxCachedCards;
+        }
+    };
+    // Bumped by every invalidation, so a load that raced one is not cached
+    private long invalidations;
+
+    @Value("${app.profiles.card-cache-max-entries:50000}")
+    private int maxCachedCards;
+
+    @Value("${app.profiles.card-cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    @Value("${app.profiles.max-card-batch:100}")
+    private int maxBatchUsers;
+
+    public ProfileCardService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Unknown users are simply absent from the result
+    public Map<Long, ProfileCard> getCards(Collection<Long> userIds) {
+        Map<Long, ProfileCard> result = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        long now = System.nanoTime();
+        long invalidationsBefore;
+        synchronized (cards) {
+            invalidationsBefore = invalidations;
+            for (Long userId : userIds) {
+                if (userId == null) {
+                    continue;
+                }
+                CachedCard cached = cards.get(userId);
+                if (cached != null && now < cached.expiresAt) {
+                    result.put(userId, cached.card);
+                } else {
+                    missing.add(userId);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(missing.size(), "?"));
+        List<ProfileCard> loaded = jdbcTemplate.query(
+                "SELECT u.id, u.username, p.profile_picture, p.headline FROM users u " +
+                        "LEFT JOIN profiles p ON p.user_id = u.id WHERE u.id IN (" + placeholders + ")",
+                (rs, rowNum) -> new ProfileCard(rs.getLong("id"), rs.getString("username"),
+                        rs.getString("profile_picture"), rs.getString("headline")),
+                missing.toArray());
+        long expiresAt = now + cacheTtlSeconds * 1_000_000_000L;
+        synchronized (cards) {
+            if (invalidations == invalidationsBefore) {
+                for (ProfileCard card : loaded) {
+                    cards.put(card.getUserId(), new CachedCard(card, expiresAt));
+                }
+            }
+        }
+        for (ProfileCard card : loaded) {
+            result.put(card.getUserId(), card);
+        }
+        return result;
+    }
+
+    // For the batch API: cards in the order of userIds, skipping unknown users
+    public List<ProfileCard> getCardsInOrder(List<Long> userIds) {
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).distinct().limit(maxBatchUsers).toList();
+        Map<Long, ProfileCard> byId = getCards(ids);
+        List<ProfileCard> ordered = new ArrayList<>(byId.size());
+        for (Long userId : ids) {
+            ProfileCard card = byId.get(userId);
+            if (card != null) {
+                ordered.add(card);
+            }
+        }
+        return ordered;
+    }
+
+    // Must be called by anything that changes a user's username, picture or headline
+    public void invalidate(Long userId) {
+        synchronized (cards) {
+            cards.remove(userId);
+            invalidations++;
+        }
+    }
+
+    private static class CachedCard {
+        final ProfileCard card;
+        final long expiresAt;
+
+        CachedCard(ProfileCard card, long expiresAt) {
+            this.card = card;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -3,30 +3,74 @@ package com.linksphere.backend.services;
 import com.linksphere.backend.dto.ProfileRequest;
 import com.linksphere.backend.mapper.ProfileMapper;
 import com.linksphere.backend.models.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ProfileService {
     private final ProfileMapper profileMapper;
+    private final ProfileCardService profileCardService;
+    private final AuthorPropagationService authorPropagationService;
+    private final PeopleSearchService peopleSearchService;
 
-    public ProfileService(ProfileMapper profileMapper) {
+    public ProfileService(ProfileMapper profileMapper, ProfileCardService profileCardService,
+                          AuthorPropagationService authorPropagationService, PeopleSearchService peopleSearchService) {
         this.profileMapper = profileMapper;
+        this.profileCardService = profileCardService;
+        this.authorPropagationService = authorPropagationService;
+        this.peopleSearchService = peopleSearchService;
     }
 
     public void createProfile(Long userId, ProfileRequest request) {
-        Profile profile = new Profile();
-        profile.setUserId(userId);
-        profile.setHeadline(request.getHeadline());
-        profile.setAbout(request.getAbout());
-        profile.setSkills(request.getSkills());
-        profile.setEducation(request.getEducation());
-        profile.setExperience(request.getExperience());
-        profile.setLocation(request.getLocation());
-        profile.setContactInfo(request.getContactInfo());
+        Profile profile = toProfile(userId, request);
         profileMapper.insert(profile);
+        profileCardService.invalidate(userId);
+        peopleSearchService.index(profile);
+        if (request.getProfilePicture() != null) {
+            authorPropagationService.enqueue(userId);
+        }
+    }
+
+    // expectedVersion is the version the client last read, or null to overwrite unconditionally
+    public Profile updateProfile(Long userId, ProfileRequest request, Integer expectedVersion) {
+        int updated = profileMapper.update(toProfile(userId, request), expectedVersion);
+        return afterUpdate(userId, updated);
+    }
+
+    // Writes only the fields present in the request; an empty string clears a field
+    public Profile patchProfile(Long userId, ProfileRequest request, Integer expectedVersion) {
+        int updated = profileMapper.patch(toProfile(userId, request), expectedVersion);
+        Profile profile = afterUpdate(userId, updated);
+        // Posts carry a copy of the picture; rewrite them in the background
+        if (request.getProfilePicture() != null) {
+            authorPropagationService.enqueue(userId);
+        }
+        return profile;
     }
 
-    public void updateProfile(Long userId, ProfileRequest request) {
+    public Profile getProfile(Long userId) {
+        return profileMapper.findByUserId(userId);
+    }
+
+    public Integer getProfileVersion(Long userId) {
+        return profileMapper.findVersionByUserId(userId);
+    }
+
+    private Profile afterUpdate(Long userId, int updated) {
+        profileCardService.invalidate(userId);
+        Profile profile = profileMapper.findByUserId(userId);
+        if (profile == null) {
+            throw new RuntimeException("Profile not found");
+        }
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Profile was changed by another request; reload and retry");
+        }
+        // Re-read rather than the request, since a patch may have left skills or headline as they were
+        peopleSearchService.index(profile);
+        return profile;
+    }
+
+    private static Profile toProfile(Long userId, ProfileRequest request) {
         Profile profile = new Profile();
         profile.setUserId(userId);
         profile.setHeadline(request.getHeadline());
@@ -36,10 +80,7 @@ public class ProfileService {
         profile.setExperience(request.getExperience());
         profile.setLocation(request.getLocation());
         profile.setContactInfo(request.getContactInfo());
-        profileMapper.update(profile);
-    }
-
-    public Profile getProfile(Long userId) {
-        return profileMapper.findByUserId(userId);
+        profile.setProfilePicture(request.getProfilePicture());
+        return profile;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,330 @@
+package com.linksphere.backend.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates downscaled JPEG variants of uploaded images off the request thread.
+ *
+ * Jobs are recorded in media_jobs before they are handed to a fixed-size
+ * worker pool with a bounded queue. When the queue is full the job simply
+ * stays PENDING and is picked up by the poller once there is room, and jobs
+ * left PENDING or RUNNING by a previous process are resumed on startup.
+ * Variants are written next to the original as {@code <name>_<size>.jpg}.
+ */
+@Service
+public class ThumbnailService {
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+    private static final int MAX_ATTEMPTS = 3;
+
+    // Variant name -> longest edge in pixels, smallest first
+    public static final Map<String, Integer> VARIANT_SIZES = new LinkedHashMap<>();
+
+    static {
+        VARIANT_SIZES.put("thumb", 160);
+        VARIANT_SIZES.put("small", 480);
+        VARIANT_SIZES.put("medium", 1080);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "thumbnail-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ThreadPoolExecutor workers;
+    private volatile boolean recovered;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.media.thumbnail-workers:2}")
+    private int workerCount;
+
+    @Value("${app.media.thumbnail-queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${app.media.thumbnail-poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    @Value("${app.media.thumbnail-jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    public ThumbnailService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "thumbnail-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        poller.scheduleWithFixedDelay(this::pollQuietly, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static boolean isImage(String fileName) {
+        return IMAGE_EXTENSIONS.contains(extensionOf(fileName));
+    }
+
+    public static String variantFileName(String fileName, String variant) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot >= 0 ? fileName.substring(0, dot) : fileName;
+        return base + "_" + variant + ".jpg";
+    }
+
+    public void enqueue(String fileName) {
+        if (!isImage(fileName)) {
+            return;
+        }
+        int inserted = jdbcTemplate.update("INSERT IGNORE INTO media_jobs (file_name, status) VALUES (?, 'PENDING')", fileName);
+        if (inserted > 0) {
+            trySubmit(fileName);
+        }
+    }
+
+    public void deleteVariants(String fileName) {
+        Path uploadPath = Paths.get(uploadDir);
+        for (String variant : VARIANT_SIZES.keySet()) {
+            try {
+                Files.deleteIfExists(uploadPath.resolve(variantFileName(fileName, variant)));
+            } catch (IOException e) {
+                logger.warn("Could not delete {} variant of {}: {}", variant, fileName, e.getMessage());
+            }
+        }
+        jdbcTemplate.update("DELETE FROM media_jobs WHERE file_name = ?", fileName);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long done = completed.sum();
+        metrics.put("queueDepth", workers.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("activeWorkers", workers.getActiveCount());
+        metrics.put("submitted", submitted.sum());
+        metrics.put("completed", done);
+        metrics.put("failed", failed.sum());
+        metrics.put("deferred", deferred.sum());
+        metrics.put("avgProcessingMs", done == 0 ? 0 : processingNanos.sum() / done / 1_000_000.0);
+        metrics.put("pendingJobs", jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM media_jobs WHERE status IN ('PENDING', 'RUNNING')", Long.class));
+        return metrics;
+    }
+
+    private void trySubmit(String fileName) {
+        if (!inFlight.add(fileName)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    process(fileName);
+                } finally {
+                    inFlight.remove(fileName);
+                }
+            });
+            submitted.increment();
+        } catch (RejectedExecutionException e) {
+            // Queue full: the job stays PENDING in the database and the poller retries it
+            inFlight.remove(fileName);
+            deferred.increment();
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (Exception e) {
+            logger.error("Error polling thumbnail jobs: {}", e.getMessage(), e);
+        }
+    }
+
+    private void poll() {
+        // Jobs stuck RUNNING belonged to a process that was stopped, or to a worker that died
+        if (!recovered) {
+            jdbcTemplate.update("UPDATE media_jobs SET status = 'PENDING' WHERE status = 'RUNNING'");
+            recovered = true;
+        } else {
+            Timestamp stale = Timestamp.valueOf(LocalDateTime.now().minusMinutes(10));
+            jdbcTemplate.update("UPDATE media_jobs SET status = 'PENDING' WHERE status = 'RUNNING' AND updated_at < ?", stale);
+        }
+
+        int room = workers.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        List<String> pending = jdbcTemplate.queryForList(
+                "SELECT file_name FROM media_jobs WHERE status = 'PENDING' ORDER BY created_at LIMIT ?", String.class, room);
+        for (String fileName : pending) {
+            trySubmit(fileName);
+        }
+    }
+
+    private void process(String fileName) {
+        int claimed = jdbcTemplate.update(
+                "UPDATE media_jobs SET status = 'RUNNING', attempts = attempts + 1 WHERE file_name = ? AND status = 'PENDING'",
+                fileName);
+        if (claimed == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            List<String> variants = generateVariants(fileName);
+            jdbcTemplate.update("UPDATE media_objects SET variants = ? WHERE file_name = ?", String.join(",", variants), fileName);
+            jdbcTemplate.update("UPDATE media_jobs SET status = 'DONE', last_error = NULL WHERE file_name = ?", fileName);
+            processingNanos.add(System.nanoTime() - start);
+            completed.increment();
+            logger.debug("Generated variants {} for {}", variants, fileName);
+        } catch (Exception e) {
+            failed.increment();
+            logger.warn("Failed to generate variants for {}: {}", fileName, e.getMessage());
+            String error = String.valueOf(e.getMessage());
+            jdbcTemplate.update("UPDATE media_jobs SET status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE 'PENDING' END, " +
+                    "last_error = ? WHERE file_name = ?", MAX_ATTEMPTS, error.substring(0, Math.min(255, error.length())), fileName);
+        }
+    }
+
+    private List<String> generateVariants(String fileName) throws IOException {
+        Path uploadPath = Paths.get(uploadDir);
+        Path original = uploadPath.resolve(fileName);
+        int largest = VARIANT_SIZES.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+
+        BufferedImage source = readSubsampled(original, largest);
+        List<String> variants = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : VARIANT_SIZES.entrySet()) {
+            int maxEdge = entry.getValue();
+            int longest = Math.max(source.getWidth(), source.getHeight());
+            if (longest <= maxEdge && !variants.isEmpty()) {
+                break; // Never upscale; the previous variant already covers this size
+            }
+            double scale = Math.min(1.0, (double) maxEdge / longest);
+            BufferedImage resized = resize(source, scale);
+
+            Path target = uploadPath.resolve(variantFileName(fileName, entry.getKey()));
+            Path temp = uploadPath.resolve(".tmp").resolve(target.getFileName() + ".part");
+            Files.createDirectories(temp.getParent());
+            writeJpeg(resized, temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            variants.add(entry.getKey());
+        }
+        return variants;
+    }
+
+    // Decodes at a reduced resolution when the original is much larger than the biggest variant
+    private BufferedImage readSubsampled(Path original, int largestEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, longest / (largestEdge * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, double scale) {
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            // JPEG has no alpha channel, so transparent areas become white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        poller.shutdownNow();
+        // Queued jobs are still PENDING in media_jobs and resume on the next start
+        workers.shutdownNow();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
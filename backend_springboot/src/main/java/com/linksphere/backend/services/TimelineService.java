@@ -0,0 +1,332 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.dto.PageResponse;
+import com.linksphere.backend.models.Post;
+import com.linksphere.backend.util.PageCursor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user home timelines built by fan-out on write.
+ *
+ * When a post is created its id is pushed into the in-memory timeline of every
+ * connection of the author whose timeline is currently materialized. Authors
+ * with more than {@code app.timeline.fanout-threshold} connections are not
+ * fanned out; their recent posts are pulled and merged when a timeline is read.
+ * Timelines that are not in memory are backfilled from posts/connections on
+ * first read, and are rebuilt whenever the connection graph changes.
+ */
+@Service
+public class TimelineService {
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+    private static final int EVICTION_SAMPLE_SIZE = 1024;
+    private final JdbcTemplate jdbcTemplate;
+    private final PostService postService;
+
+    private final Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+    // Timelines being rebuilt, registered before their posts are read so fan-out reaches them too
+    private final Map<Long, Set<Timeline>> building = new ConcurrentHashMap<>();
+    private final Set<Long> highFanoutAuthors = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingRebuilds = ConcurrentHashMap.newKeySet();
+    private final ExecutorService fanoutExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "timeline-fanout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.timeline.capacity:800}")
+    private int capacity;
+
+    @Value("${app.timeline.fanout-threshold:5000}")
+    private int fanoutThreshold;
+
+    @Value("${app.timeline.max-cached-users:100000}")
+    private int maxCachedUsers;
+
+    @Value("${app.feed.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.feed.max-page-size:100}")
+    private int maxPageSize;
+
+    public TimelineService(JdbcTemplate jdbcTemplate, @Lazy PostService postService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postService = postService;
+    }
+
+    public void onPostCreated(Post post) {
+        fanoutExecutor.execute(() -> fanOut(post.getUserId(), post.getId()));
+    }
+
+    public void onConnectionChanged(Long userId, Long otherUserId) {
+        scheduleRebuild(userId);
+        scheduleRebuild(otherUserId);
+    }
+
+    public PageResponse<Post> getTimeline(Long userId, String cursor, Integer limit) {
+        PageCursor before = PageCursor.decode(cursor);
+        long beforeId = before == null ? Long.MAX_VALUE : before.getId();
+        int pageSize = (limit == null || limit <= 0) ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        Timeline timeline = timelines.get(userId);
+        if (timeline == null) {
+            timeline = rebuild(userId);
+        }
+        timeline.touch();
+
+        // Fetch one extra id so hasMore is known without a second lookup
+        long[] pushed = timeline.slice(beforeId, pageSize + 1);
+        if (pushed.length <= pageSize && timeline.isFull()) {
+            // Paging past what the bounded timeline keeps; read the older tail from the database
+            pushed = findNetworkPostIds(userId, beforeId, pageSize + 1);
+        }
+        long[] pulled = pullHighFanoutPosts(userId, beforeId, pageSize + 1);
+        long[] ids = mergeDescending(pushed, pulled, pageSize + 1);
+
+        boolean hasMore = ids.length > pageSize;
+        if (hasMore) {
+            ids = Arrays.copyOf(ids, pageSize);
+        }
+        List<Post> posts = postService.findPostsInOrder(ids);
+        String nextCursor = null;
+        if (hasMore && !posts.isEmpty()) {
+            Post last = posts.get(posts.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreatedAt(), ids[ids.length - 1]);
+        }
+        return new PageResponse<>(posts, nextCursor, hasMore);
+    }
+
+    private void fanOut(Long authorId, Long postId) {
+        try {
+            List<Long> followerIds = jdbcTemplate.queryForList(
+                    "SELECT connected_user_id FROM connections WHERE user_id = ?", Long.class, authorId);
+            pushIfMaterialized(authorId, postId);
+
+            if (followerIds.size() > fanoutThreshold) {
+                // Too expensive to push; readers merge this author's posts on read
+                highFanoutAuthors.add(authorId);
+                logger.info("Author {} has {} connections, serving posts by pull", authorId, followerIds.size());
+                return;
+            }
+            highFanoutAuthors.remove(authorId);
+            for (Long followerId : followerIds) {
+                pushIfMaterialized(followerId, postId);
+            }
+            logger.debug("Fanned out post {} to {} connections", postId, followerIds.size());
+        } catch (Exception e) {
+            logger.error("Error fanning out post {}: {}", postId, e.getMessage(), e);
+        }
+    }
+
+    private void pushIfMaterialized(Long userId, Long postId) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline != null) {
+            timeline.push(postId);
+        }
+        Set<Timeline> rebuilding = building.get(userId);
+        if (rebuilding != null) {
+            for (Timeline next : rebuilding) {
+                next.push(postId);
+            }
+        }
+    }
+
+    private void scheduleRebuild(Long userId) {
+        if (!timelines.containsKey(userId)) {
+            return; // Will be backfilled on first read
+        }
+        if (pendingRebuilds.add(userId)) {
+            fanoutExecutor.execute(() -> {
+                pendingRebuilds.remove(userId);
+                try {
+                    rebuild(userId);
+                } catch (Exception e) {
+                    logger.error("Error rebuilding timeline for user {}: {}", userId, e.getMessage(), e);
+                    timelines.remove(userId);
+                }
+            });
+        }
+    }
+
+    private Timeline rebuild(Long userId) {
+        // A post fanned out while the query runs lands in the new timeline either way:
+        // through this registration if the fan-out comes later, or in the query result if earlier
+        Timeline timeline = new Timeline(capacity);
+        building.compute(userId, (id, rebuilding) -> {
+            Set<Timeline> set = rebuilding != null ? rebuilding : ConcurrentHashMap.newKeySet();
+            set.add(timeline);
+            return set;
+        });
+        try {
+            long[] ids = findNetworkPostIds(userId, Long.MAX_VALUE, capacity);
+            for (int i = ids.length - 1; i >= 0; i--) {
+                timeline.push(ids[i]);
+            }
+            evictIfFull();
+            timelines.put(userId, timeline);
+            logger.debug("Rebuilt timeline for user {} with {} posts", userId, ids.length);
+        } finally {
+            building.computeIfPresent(userId, (id, rebuilding) -> {
+                rebuilding.remove(timeline);
+                return rebuilding.isEmpty() ? null : rebuilding;
+            });
+        }
+        return timeline;
+    }
+
+    private long[] findNetworkPostIds(Long userId, long beforeId, int limit) {
+        String sql = """
+            SELECT p.id FROM posts p
+            WHERE (p.user_id = ?
+               OR p.user_id IN (SELECT connected_user_id FROM connections WHERE user_id = ?))
+              AND p.id < ?
+            ORDER BY p.id DESC
+            LIMIT ?
+            """;
+        return jdbcTemplate.queryForList(sql, Long.class, userId, userId, beforeId, limit)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void evictIfFull() {
+        if (timelines.size() < maxCachedUsers) {
+            return;
+        }
+        // Drop roughly the least recently read tenth, with the cutoff estimated from an evenly
+        // spaced sample rather than a sort of every timeline; evicted users are backfilled on their next read
+        int stride = Math.max(1, timelines.size() / EVICTION_SAMPLE_SIZE);
+        long[] sample = new long[EVICTION_SAMPLE_SIZE];
+        int sampled = 0;
+        int index = 0;
+        for (Timeline timeline : timelines.values()) {
+            if (sampled == sample.length) {
+                break;
+            }
+            if (index++ % stride == 0) {
+                sample[sampled++] = timeline.lastReadAt();
+            }
+        }
+        if (sampled == 0) {
+            return;
+        }
+        Arrays.sort(sample, 0, sampled);
+        long cutoff = sample[sampled / 10];
+        Iterator<Timeline> it = timelines.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().lastReadAt() <= cutoff) {
+                it.remove();
+            }
+        }
+    }
+
+    private long[] pullHighFanoutPosts(Long userId, long beforeId, int limit) {
+        if (highFanoutAuthors.isEmpty()) {
+            return new long[0];
+        }
+        List<Long> authors = new ArrayList<>(highFanoutAuthors);
+        String placeholders = String.join(",", Collections.nCopies(authors.size(), "?"));
+        String sql = "SELECT p.id FROM posts p " +
+                "JOIN connections c ON c.connected_user_id = p.user_id AND c.user_id = ? " +
+                "WHERE p.user_id IN (" + placeholders + ") AND p.id < ? " +
+                "ORDER BY p.id DESC LIMIT ?";
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        args.addAll(authors);
+        args.add(beforeId);
+        args.add(limit);
+        return jdbcTemplate.queryForList(sql, Long.class, args.toArray()).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long[] mergeDescending(long[] a, long[] b, int limit) {
+        long[] merged = new long[Math.min(limit, a.length + b.length)];
+        int i = 0, j = 0, n = 0;
+        long previous = Long.MAX_VALUE;
+        while (n < merged.length && (i < a.length || j < b.length)) {
+            long next = (j >= b.length || (i < a.length && a[i] >= b[j])) ? a[i++] : b[j++];
+            if (next != previous) {
+                merged[n++] = next;
+                previous = next;
+            }
+        }
+        return n == merged.length ? merged : Arrays.copyOf(merged, n);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        fanoutExecutor.shutdown();
+        fanoutExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Bounded, ascending array of post ids. Post ids are auto-increment, so
+     * almost every push is an append; the oldest id is dropped when full.
+     */
+    static class Timeline {
+        private final long[] ids;
+        private int size;
+        private volatile long lastReadAt = System.currentTimeMillis();
+
+        Timeline(int capacity) {
+            this.ids = new long[capacity];
+        }
+
+        synchronized void push(long postId) {
+            int pos = Arrays.binarySearch(ids, 0, size, postId);
+            if (pos >= 0) {
+                return;
+            }
+            int insertAt = -pos - 1;
+            if (size == ids.length) {
+                if (insertAt == 0) {
+                    return; // Older than everything we keep
+                }
+                System.arraycopy(ids, 1, ids, 0, insertAt - 1);
+                ids[insertAt - 1] = postId;
+                return;
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = postId;
+            size++;
+        }
+
+        // Newest first, strictly older than beforeId
+        synchronized long[] slice(long beforeId, int limit) {
+            int pos = Arrays.binarySearch(ids, 0, size, beforeId);
+            int end = pos >= 0 ? pos : -pos - 1;
+            int count = Math.min(limit, end);
+            long[] slice = new long[count];
+            for (int i = 0; i < count; i++) {
+                slice[i] = ids[end - 1 - i];
+            }
+            return slice;
+        }
+
+        synchronized boolean isFull() {
+            return size == ids.length;
+        }
+
+        void touch() {
+            lastReadAt = System.currentTimeMillis();
+        }
+
+        long lastReadAt() {
+            return lastReadAt;
+        }
+    }
+}
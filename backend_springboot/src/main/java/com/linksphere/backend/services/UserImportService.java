@@ -0,0 +1,600 @@
+package com.linksphere.backend.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linksphere.backend.mapper.ProfileMapper;
+import com.linksphere.backend.mapper.UserImportJobMapper;
+import com.linksphere.backend.mapper.UserMapper;
+import com.linksphere.backend.models.Profile;
+import com.linksphere.backend.models.User;
+import com.linksphere.backend.models.UserImportJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Imports users in bulk from a CSV (with a header row) or JSONL file.
+ *
+ * The uploaded file is streamed to disk, then read back in chunks. Each
+ * chunk is hashed in parallel on a dedicated ForkJoin pool while the
+ * previous chunk is written, so BCrypt and the database overlap. A chunk is
+ * inserted through a MyBatis batch session in one transaction together with
+ * the job's line counter, so after a crash or restart the job resumes at the
+ * first uncommitted line. Emails that already exist are skipped, and
+ * passwords that are already BCrypt hashes are kept as they are. A row that
+ * cannot be parsed or hashed is counted as failed without stopping the job.
+ *
+ * The uploaded file holds plaintext passwords, so it is readable by the
+ * owner only and deleted once the job completes; a failed job keeps it for
+ * app.users.import-failed-retention-hours so it can be resumed.
+ *
+ * Columns/fields: email, password, username, plus optional headline, about,
+ * skills and location, which create a profiles row.
+ */
+@Service
+public class UserImportService {
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+    private static final Set<String> FORMATS = Set.of("csv", "jsonl");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SqlSessionTemplate batchSession;
+    private final PasswordEncoder passwordEncoder;
+    private final UserMapper userMapper;
+    private final ProfileMapper profileMapper;
+    private final UserService userService;
+    private final PeopleSearchService peopleSearchService;
+    private final UsernameTypeaheadService usernameTypeaheadService;
+    private final ObjectMapper objectMapper;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    // One import at a time; each one already uses the whole hashing pool
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "user-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "user-import-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ForkJoinPool hashingPool;
+
+    @Value("${app.users.import-dir:imports}")
+    private String importDir;
+
+    @Value("${app.users.import-chunk-size:1000}")
+    private int chunkSize;
+
+    // 0 means half the available processors, leaving the rest for request handling
+    @Value("${app.users.import-hashing-parallelism:0}")
+    private int hashingParallelism;
+
+    @Value("${app.users.import-failed-retention-hours:72}")
+    private long failedRetentionHours;
+
+    public UserImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             SqlSessionFactory sqlSessionFactory, PasswordEncoder passwordEncoder,
+                             UserMapper userMapper, ProfileMapper profileMapper, UserService userService, PeopleSearchService peopleSearchService,
+                             UsernameTypeaheadService usernameTypeaheadService, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        this.passwordEncoder = passwordEncoder;
+        this.userMapper = userMapper;
+        this.profileMapper = profileMapper;
+        this.userService = userService;
+        this.peopleSearchService = peopleSearchService;
+        this.usernameTypeaheadService = usernameTypeaheadService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        int parallelism = hashingParallelism > 0
+                ? hashingParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        hashingPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("user-import-hashing-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        cleanupExecutor.scheduleWithFixedDelay(this::cleanupQuietly, 1, 1, TimeUnit.HOURS);
+    }
+
+    // Jobs left RUNNING were interrupted by a shutdown; pick them up where they stopped
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        List<String> interrupted = jdbcTemplate.queryForList(
+                "SELECT id FROM user_import_jobs WHERE status IN ('PENDING', 'RUNNING') ORDER BY created_at", String.class);
+        for (String jobId : interrupted) {
+            logger.info("Resuming interrupted user import {}", jobId);
+            submit(jobId);
+        }
+    }
+
+    public UserImportJob createJob(Long adminId, String format, InputStream body) {
+        String normalizedFormat = format == null ? "" : format.toLowerCase(Locale.ROOT);
+        if (!FORMATS.contains(normalizedFormat)) {
+            throw new RuntimeException("Import format must be csv or jsonl");
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        Path path = importPath(jobId);
+        long totalLines = 0;
+        try {
+            createOwnerOnly(path);
+            // Newlines are counted on the way in so progress can be reported as a fraction
+            try (OutputStream out = Files.newOutputStream(path)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    for (int i = 0; i < read; i++) {
+                        if (buffer[i] == '\n') {
+                            totalLines++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to store import file for job {}", jobId, e);
+            deleteImportFile(jobId);
+            throw new RuntimeException("Failed to store import file", e);
+        }
+
+        try {
+            jdbcTemplate.update("INSERT INTO user_import_jobs (id, created_by, format, status, total_lines) VALUES (?, ?, ?, 'PENDING', ?)",
+                    jobId, adminId, normalizedFormat, totalLines);
+        } catch (RuntimeException e) {
+            deleteImportFile(jobId);
+            throw e;
+        }
+        logger.info("Created user import {} ({}, {} lines) for admin {}", jobId, normalizedFormat, totalLines, adminId);
+        submit(jobId);
+        return getJob(jobId);
+    }
+
+    public UserImportJob getJob(String jobId) {
+        List<UserImportJob> jobs = jdbcTemplate.query("SELECT * FROM user_import_jobs WHERE id = ?",
+                new UserImportJobMapper(), jobId);
+        if (jobs.isEmpty()) {
+            throw new RuntimeException("Import job not found");
+        }
+        return jobs.get(0);
+    }
+
+    public UserImportJob resume(String jobId) {
+        UserImportJob job = getJob(jobId);
+        if ("COMPLETE".equals(job.getStatus())) {
+            return job;
+        }
+        if (!running.contains(jobId)) {
+            if (!Files.exists(importPath(jobId))) {
+                throw new RuntimeException("Import file has been removed; upload it again");
+            }
+            jdbcTemplate.update("UPDATE user_import_jobs SET status = 'PENDING', last_error = NULL WHERE id = ?", jobId);
+            submit(jobId);
+        }
+        return getJob(jobId);
+    }
+
+    private void submit(String jobId) {
+        if (!running.add(jobId)) {
+            return;
+        }
+        importExecutor.execute(() -> {
+            try {
+                run(jobId);
+            } finally {
+                running.remove(jobId);
+            }
+        });
+    }
+
+    private void run(String jobId) {
+        try {
+            UserImportJob job = getJob(jobId);
+            jdbcTemplate.update("UPDATE user_import_jobs SET status = 'RUNNING' WHERE id = ?", jobId);
+            long startedAt = System.nanoTime();
+
+            try (BufferedReader reader = Files.newBufferedReader(importPath(jobId), StandardCharsets.UTF_8)) {
+                long lineNumber = 0;
+                List<String> header = null;
+                if ("csv".equals(job.getFormat())) {
+                    String headerLine = reader.readLine();
+                    if (headerLine == null) {
+                        throw new RuntimeException("CSV file is empty");
+                    }
+                    header = new ArrayList<>();
+                    for (String column : parseCsvLine(headerLine)) {
+                        header.add(column.trim().toLowerCase(Locale.ROOT));
+                    }
+                    lineNumber = 1;
+                }
+                // Skip what earlier runs already committed
+                while (lineNumber < job.getLinesProcessed() && reader.readLine() != null) {
+                    lineNumber++;
+                }
+
+                // Hash the next chunk while the current one is being written
+                CompletableFuture<Chunk> pending = null;
+                Chunk chunk;
+                while ((chunk = readChunk(reader, job.getFormat(), header, lineNumber)) != null) {
+                    lineNumber = chunk.endLine;
+                    Chunk toHash = chunk;
+                    CompletableFuture<Chunk> hashed = CompletableFuture.supplyAsync(() -> hash(toHash), hashingPool);
+                    if (pending != null) {
+                        write(jobId, pending.join());
+                    }
+                    pending = hashed;
+                }
+                if (pending != null) {
+                    write(jobId, pending.join());
+                }
+            }
+
+            jdbcTemplate.update("UPDATE user_import_jobs SET status = 'COMPLETE' WHERE id = ?", jobId);
+            deleteImportFile(jobId);
+            UserImportJob done = getJob(jobId);
+            logger.info("Completed user import {}: {} imported, {} skipped, {} failed in {} ms", jobId,
+                    done.getImported(), done.getSkipped(), done.getFailed(), (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("User import {} stopped: {}", jobId, e.getMessage(), e);
+            jdbcTemplate.update("UPDATE user_import_jobs SET status = 'FAILED', last_error = ? WHERE id = ?",
+                    truncate(e.getMessage()), jobId);
+        }
+    }
+
+    // null once the file is exhausted
+    private Chunk readChunk(BufferedReader reader, String format, List<String> header, long lineNumber) throws IOException {
+        Chunk chunk = new Chunk();
+        chunk.endLine = lineNumber;
+        String line;
+        int lines = 0;
+        while (lines < chunkSize && (line = reader.readLine()) != null) {
+            lines++;
+            chunk.endLine++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                ImportRow row = "csv".equals(format) ? parseCsvRow(header, line) : parseJsonRow(line);
+                row.line = chunk.endLine;
+                chunk.rows.add(row);
+            } catch (Exception e) {
+                chunk.failed++;
+                chunk.lastError = "Line " + chunk.endLine + ": " + e.getMessage();
+            }
+        }
+        return lines == 0 ? null : chunk;
+    }
+
+    private Chunk hash(Chunk chunk) {
+        // Runs on hashingPool, so the parallel stream splits across its workers
+        chunk.rows.parallelStream().forEach(row -> {
+            try {
+                row.user.setPassword(BCRYPT_HASH.matcher(row.user.getPassword()).matches()
+                        ? row.user.getPassword()
+                        : passwordEncoder.encode(row.user.getPassword()));
+            } catch (RuntimeException e) {
+                // BCrypt rejects passwords over 72 bytes, for one
+                row.error = e.getMessage();
+            }
+        });
+        for (Iterator<ImportRow> rows = chunk.rows.iterator(); rows.hasNext(); ) {
+            ImportRow row = rows.next();
+            if (row.error != null) {
+                rows.remove();
+                chunk.failed++;
+                chunk.lastError = "Line " + row.line + ": " + row.error;
+            }
+        }
+        return chunk;
+    }
+
+    private void write(String jobId, Chunk chunk) {
+        List<ImportRow> imported;
+        try {
+            imported = transactionTemplate.execute(status -> writeBatch(jobId, chunk));
+        } catch (DuplicateKeyException e) {
+            // Someone registered one of these emails after it was checked; the batch rolled back as a whole
+            logger.info("User import {} raced a registration before line {}; writing the chunk row by row", jobId, chunk.endLine);
+            imported = transactionTemplate.execute(status -> writeRowByRow(jobId, chunk, status));
+        }
+        if (imported != null) {
+            for (ImportRow row : imported) {
+                userService.evict(row.user.getEmail());
+                usernameTypeaheadService.add(row.user.getId(), row.user.getUsername());
+                if (row.profile != null) {
+                    peopleSearchService.index(row.profile);
+                }
+            }
+        }
+    }
+
+    private List<ImportRow> writeBatch(String jobId, Chunk chunk) {
+        List<ImportRow> fresh = newRows(chunk.rows);
+
+        UserMapper batchUserMapper = batchSession.getMapper(UserMapper.class);
+        for (ImportRow row : fresh) {
+            batchUserMapper.insert(row.user);
+        }
+        // Flushing executes the batch and fills in the generated user ids
+        batchSession.flushStatements();
+
+        ProfileMapper batchProfileMapper = batchSession.getMapper(ProfileMapper.class);
+        for (ImportRow row : fresh) {
+            if (row.profile != null) {
+                row.profile.setUserId(row.user.getId());
+                batchProfileMapper.insert(row.profile);
+            }
+        }
+        batchSession.flushStatements();
+
+        recordProgress(jobId, chunk, fresh.size());
+        return fresh;
+    }
+
+    // Each row behind its own savepoint, so a duplicate email skips that row and keeps the rest
+    private List<ImportRow> writeRowByRow(String jobId, Chunk chunk, TransactionStatus status) {
+        List<ImportRow> inserted = new ArrayList<>();
+        for (ImportRow row : newRows(chunk.rows)) {
+            Object savepoint = status.createSavepoint();
+            try {
+                userMapper.insert(row.user);
+                if (row.profile != null) {
+                    row.profile.setUserId(row.user.getId());
+                    profileMapper.insert(row.profile);
+                }
+                status.releaseSavepoint(savepoint);
+                inserted.add(row);
+            } catch (DuplicateKeyException e) {
+                status.rollbackToSavepoint(savepoint);
+            }
+        }
+        recordProgress(jobId, chunk, inserted.size());
+        return inserted;
+    }
+
+    // Rows whose email is neither in the table nor earlier in the chunk
+    private List<ImportRow> newRows(List<ImportRow> rows) {
+        Set<String> existing = existingEmails(rows);
+        Set<String> seen = new HashSet<>();
+        List<ImportRow> fresh = new ArrayList<>();
+        for (ImportRow row : rows) {
+            String email = row.user.getEmail().toLowerCase(Locale.ROOT);
+            if (!existing.contains(email) && seen.add(email)) {
+                fresh.add(row);
+            }
+        }
+        return fresh;
+    }
+
+    // Committed with the chunk's rows, so lines_processed never runs ahead of the data
+    private void recordProgress(String jobId, Chunk chunk, int imported) {
+        jdbcTemplate.update("UPDATE user_import_jobs SET lines_processed = ?, imported = imported + ?, " +
+                        "skipped = skipped + ?, failed = failed + ?, last_error = COALESCE(?, last_error) WHERE id = ?",
+                chunk.endLine, imported, chunk.rows.size() - imported, chunk.failed,
+                truncate(chunk.lastError), jobId);
+    }
+
+    // Failed jobs keep their file for a while so they can be resumed; after that it goes
+    public void cleanupFailed() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(failedRetentionHours));
+        List<String> expired = jdbcTemplate.queryForList(
+                "SELECT id FROM user_import_jobs WHERE status = 'FAILED' AND updated_at < ?", String.class, cutoff);
+        int removed = 0;
+        for (String jobId : expired) {
+            if (!running.contains(jobId) && Files.exists(importPath(jobId))) {
+                deleteImportFile(jobId);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info("Removed the files of {} failed user imports", removed);
+        }
+    }
+
+    private void cleanupQuietly() {
+        try {
+            cleanupFailed();
+        } catch (Exception e) {
+            logger.error("Error cleaning up user import files: {}", e.getMessage(), e);
+        }
+    }
+
+    private Set<String> existingEmails(List<ImportRow> rows) {
+        if (rows.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String placeholders = String.join(",", Collections.nCopies(rows.size(), "?"));
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.query("SELECT email FROM users WHERE email IN (" + placeholders + ")",
+                rs -> {
+                    existing.add(rs.getString("email").toLowerCase(Locale.ROOT));
+                },
+                rows.stream().map(row -> row.user.getEmail()).toArray());
+        return existing;
+    }
+
+    private ImportRow parseCsvRow(List<String> header, String line) {
+        List<String> values = parseCsvLine(line);
+        return toRow(field -> {
+            int index = header.indexOf(field);
+            return index >= 0 && index < values.size() ? values.get(index) : null;
+        });
+    }
+
+    private ImportRow parseJsonRow(String line) throws IOException {
+        JsonNode node = objectMapper.readTree(line);
+        return toRow(field -> node.hasNonNull(field) ? node.get(field).asText() : null);
+    }
+
+    private ImportRow toRow(Function<String, String> field) {
+        String email = trimToNull(field.apply("email"));
+        String password = field.apply("password");
+        String username = trimToNull(field.apply("username"));
+        if (email == null || password == null || password.isEmpty() || username == null) {
+            throw new RuntimeException("email, password and username are required");
+        }
+
+        ImportRow row = new ImportRow();
+        row.user = new User();
+        row.user.setEmail(email);
+        row.user.setPassword(password);
+        row.user.setUsername(username);
+        row.user.setRole("USER");
+
+        String headline = trimToNull(field.apply("headline"));
+        String about = trimToNull(field.apply("about"));
+        String skills = trimToNull(field.apply("skills"));
+        String location = trimToNull(field.apply("location"));
+        if (headline != null || about != null || skills != null || location != null) {
+            row.profile = new Profile();
+            row.profile.setHeadline(headline);
+            row.profile.setAbout(about);
+            row.profile.setSkills(skills);
+            row.profile.setLocation(location);
+        }
+        return row;
+    }
+
+    // RFC 4180 fields on a single line: commas, quoted fields and doubled quotes
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new RuntimeException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    // Kept outside the upload directory so import files are never served
+    private Path importPath(String jobId) {
+        return Paths.get(importDir).resolve(jobId + ".import");
+    }
+
+    // Created readable by the owner only where the file system has POSIX permissions
+    private static void createOwnerOnly(Path path) throws IOException {
+        if (path.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(path.getParent(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createDirectories(path.getParent());
+            Files.createFile(path);
+        }
+    }
+
+    private void deleteImportFile(String jobId) {
+        try {
+            Files.deleteIfExists(importPath(jobId));
+        } catch (IOException e) {
+            logger.warn("Could not delete the file of user import {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+        cleanupExecutor.shutdownNow();
+        hashingPool.shutdownNow();
+    }
+
+    private static class Chunk {
+        final List<ImportRow> rows = new ArrayList<>();
+        long endLine;
+        int failed;
+        String lastError;
+    }
+
+    private static class ImportRow {
+        User user;
+        Profile profile;
+        long line;
+        String error;
+    }
+}
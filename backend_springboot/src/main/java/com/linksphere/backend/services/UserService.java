@@ -4,29 +4,114 @@ import com.linksphere.backend.dto.RegisterRequest;
 
 import com.linksphere.backend.mapper.UserMapper;
 import com.linksphere.backend.models.User;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.linksphere.backend.models.UserPrincipal;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
 @Service
 public class UserService {
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final UsernameTypeaheadService usernameTypeaheadService;
+    private final Executor requestExecutor;
+
+    // Every authenticated request resolves its user by email; recent ones stay in memory (bounded + TTL).
+    // Entries are immutable principals without the password hash, so lookups need no lock
+    private final Map<String, CachedPrincipal> principalsByEmail = new ConcurrentHashMap<>();
+
+    @Value("${app.users.cache-max-entries:10000}")
+    private int maxCachedUsers;
 
-    public UserService(UserMapper userMapper, PasswordEncoder passwordEncoder) {
+    @Value("${app.users.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    public UserService(UserMapper userMapper, PasswordHashingService passwordHashingService,
+                       UsernameTypeaheadService usernameTypeaheadService,
+                       @Qualifier("applicationTaskExecutor") Executor requestExecutor) {
         this.userMapper = userMapper;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.usernameTypeaheadService = usernameTypeaheadService;
+        this.requestExecutor = requestExecutor;
     }
 
-    public void registerUser(RegisterRequest request) {
-        User user = new User();
-        user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setUsername(request.getUsername());
-        user.setRole("USER");
-        userMapper.insert(user);
+    // Hashing runs on the password hashing pool; the insert is handed to the application task
+    // executor so a slow database never holds a BCrypt worker
+    public CompletableFuture<Void> registerUser(RegisterRequest request) {
+        return passwordHashingService.encode(request.getPassword()).thenAcceptAsync(hash -> {
+            User user = new User();
+            user.setEmail(request.getEmail());
+            user.setPassword(hash);
+            user.setUsername(request.getUsername());
+            user.setRole("USER");
+            userMapper.insert(user);
+            evict(user.getEmail());
+            usernameTypeaheadService.add(user.getId(), user.getUsername());
+        }, requestExecutor);
     }
 
-    public User findByEmail(String email) {
+    // The users row with its password hash, for checking a login; never cached
+    public User findForLogin(String email) {
         return userMapper.findByEmail(email);
     }
-}
\ No newline at end of file
+
+    // Identity and role only; password checks load the users row through findForLogin
+    public UserPrincipal findPrincipal(String email) {
+        long now = System.nanoTime();
+        CachedPrincipal cached = principalsByEmail.get(email);
+        if (cached != null && now < cached.expiresAt) {
+            return cached.principal;
+        }
+        User user = userMapper.findByEmail(email);
+        // Misses are not cached, so a user who registers is found immediately
+        if (user == null) {
+            principalsByEmail.remove(email);
+            return null;
+        }
+        UserPrincipal principal = new UserPrincipal(user);
+        if (principalsByEmail.size() >= maxCachedUsers) {
+            evictSample(now);
+        }
+        principalsByEmail.put(email, new CachedPrincipal(principal, now + cacheTtlSeconds * 1_000_000_000L));
+        return principal;
+    }
+
+    // Must be called by anything that changes a users row
+    public void evict(String email) {
+        principalsByEmail.remove(email);
+    }
+
+    // Drops expired entries among a few, or else the one closest to expiring; approximate, but lock-free
+    private void evictSample(long now) {
+        String oldest = null;
+        long oldestExpiry = Long.MAX_VALUE;
+        boolean freed = false;
+        int sampled = 0;
+        Iterator<Map.Entry<String, CachedPrincipal>> it = principalsByEmail.entrySet().iterator();
+        while (it.hasNext() && sampled++ < EVICTION_SAMPLE_SIZE) {
+            Map.Entry<String, CachedPrincipal> entry = it.next();
+            long expiresAt = entry.getValue().expiresAt;
+            if (now >= expiresAt) {
+                it.remove();
+                freed = true;
+            } else if (expiresAt < oldestExpiry) {
+                oldest = entry.getKey();
+                oldestExpiry = expiresAt;
+            }
+        }
+        if (!freed && oldest != null) {
+            principalsByEmail.remove(oldest);
+        }
+    }
+
+    private record CachedPrincipal(UserPrincipal principal, long expiresAt) {
+    }
+}
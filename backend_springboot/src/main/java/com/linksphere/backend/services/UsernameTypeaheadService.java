@@ -0,0 +1,316 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.dto.UsernameMatch;
+import com.linksphere.backend.util.RebuildExecutor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Username prefix lookup for the search box.
+ *
+ * Usernames live in memory as a sorted array, so the matches for a prefix
+ * are one contiguous range found by binary search. New users go into a
+ * small sorted side array that is merged into the main one once it fills
+ * up; both are immutable and published together, so lookups take no lock.
+ * The viewer's own connections whose names match are listed first; their
+ * names are resolved once per viewer and cached briefly, since a typeahead
+ * sends a lookup for every keystroke.
+ */
+@Service
+public class UsernameTypeaheadService {
+    private static final Logger logger = LoggerFactory.getLogger(UsernameTypeaheadService.class);
+    private static final Comparator<Entry> BY_KEY = Comparator.comparing(Entry::key).thenComparingLong(Entry::userId);
+    private static final Comparator<Entry> BY_USER_ID = Comparator.comparingLong(Entry::userId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConnectionGraphService connectionGraphService;
+    private final RebuildExecutor loadExecutor = new RebuildExecutor("username-typeahead-load");
+
+    private volatile State state = new State(Snapshot.of(new Entry[0]), new Entry[0]);
+    private volatile boolean ready;
+    // Users registered while the table is being read, replayed onto the loaded index
+    private List<Entry> addedDuringLoad;
+
+    // Each viewer's connections sorted by username (LRU + TTL); new connections appear once it expires
+    private final Map<Long, CachedConnections> connectionsByViewer = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedConnections> eldest) {
+            return size() > maxCachedViewers;
+        }
+    };
+
+    @Value("${app.typeahead.default-limit:10}")
+    private int defaultLimit;
+
+    @Value("${app.typeahead.max-limit:25}")
+    private int maxLimit;
+
+    @Value("${app.typeahead.merge-threshold:1024}")
+    private int mergeThreshold;
+
+    @Value("${app.typeahead.connection-cache-max-entries:10000}")
+    private int maxCachedViewers;
+
+    @Value("${app.typeahead.connection-cache-ttl-seconds:30}")
+    private long connectionCacheTtlSeconds;
+
+    public UsernameTypeaheadService(JdbcTemplate jdbcTemplate, ConnectionGraphService connectionGraphService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.connectionGraphService = connectionGraphService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loadExecutor.retryUntilDone(this::load);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean load() {
+        logger.info("Loading usernames for typeahead");
+        synchronized (this) {
+            addedDuringLoad = new ArrayList<>();
+        }
+        try {
+            List<Entry> entries = new ArrayList<>();
+            jdbcTemplate.query("SELECT id, username FROM users WHERE username IS NOT NULL", rs -> {
+                entries.add(Entry.of(rs.getLong("id"), rs.getString("username")));
+            });
+            synchronized (this) {
+                entries.addAll(addedDuringLoad);
+                addedDuringLoad = null;
+                Entry[] sorted = entries.toArray(new Entry[0]);
+                Arrays.sort(sorted, BY_KEY);
+                // A user registered during the scan may also have been read from the table
+                int distinct = 0;
+                for (Entry entry : sorted) {
+                    if (distinct == 0 || BY_KEY.compare(sorted[distinct - 1], entry) != 0) {
+                        sorted[distinct++] = entry;
+                    }
+                }
+                state = new State(Snapshot.of(Arrays.copyOf(sorted, distinct)), new Entry[0]);
+            }
+            ready = true;
+            logger.info("Username typeahead loaded with {} users", state.base.entries.length);
+            return true;
+        } catch (Exception e) {
+            synchronized (this) {
+                addedDuringLoad = null;
+            }
+            logger.error("Error loading usernames for typeahead: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    // Called once a users row has been inserted
+    public synchronized void add(Long userId, String username) {
+        if (userId == null || username == null) {
+            return;
+        }
+        Entry entry = Entry.of(userId, username);
+        if (addedDuringLoad != null) {
+            addedDuringLoad.add(entry);
+        }
+        State current = state;
+        Entry[] pending = Arrays.copyOf(current.pending, current.pending.length + 1);
+        int index = -Arrays.binarySearch(current.pending, entry, BY_KEY) - 1;
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(current.pending, index, pending, index + 1, current.pending.length - index);
+        pending[index] = entry;
+        if (pending.length < mergeThreshold) {
+            state = new State(current.base, pending);
+        } else {
+            state = new State(current.base.merge(pending), new Entry[0]);
+        }
+    }
+
+    /**
+     * Users whose username starts with the prefix, case-insensitively: the
+     * viewer's connections first, then everyone else in username order.
+     */
+    public List<UsernameMatch> lookup(Long viewerId, String prefix, Integer limit) {
+        int n = limit == null || limit <= 0 ? defaultLimit : Math.min(limit, maxLimit);
+        String key = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        List<UsernameMatch> matches = new ArrayList<>(n);
+        if (key.isEmpty()) {
+            return matches;
+        }
+        if (!ready) {
+            return scanWhileLoading(viewerId, key, n);
+        }
+
+        State current = state;
+        Entry[] connected = connections(viewerId, current);
+        Set<Long> listed = new HashSet<>();
+        for (int c = lowerBound(connected, key); c < connected.length && matches.size() < n; c++) {
+            Entry entry = connected[c];
+            if (!entry.key.startsWith(key)) {
+                break;
+            }
+            matches.add(new UsernameMatch(entry.userId, entry.username, true));
+            listed.add(entry.userId);
+        }
+
+        // Walk the matching ranges of both arrays in merged order
+        Entry[] base = current.base.entries;
+        Entry[] pending = current.pending;
+        int i = lowerBound(base, key);
+        int j = lowerBound(pending, key);
+        while (matches.size() < n) {
+            boolean baseMatches = i < base.length && base[i].key.startsWith(key);
+            boolean pendingMatches = j < pending.length && pending[j].key.startsWith(key);
+            Entry next;
+            if (baseMatches && (!pendingMatches || BY_KEY.compare(base[i], pending[j]) <= 0)) {
+                next = base[i++];
+            } else if (pendingMatches) {
+                next = pending[j++];
+            } else {
+                break;
+            }
+            if (next.userId != viewerId && !listed.contains(next.userId)) {
+                matches.add(new UsernameMatch(next.userId, next.username, false));
+            }
+        }
+        return matches;
+    }
+
+    private Entry[] connections(Long viewerId, State current) {
+        long now = System.nanoTime();
+        synchronized (connectionsByViewer) {
+            CachedConnections cached = connectionsByViewer.get(viewerId);
+            if (cached != null && now < cached.expiresAt) {
+                return cached.entries;
+            }
+        }
+        List<Entry> found = new ArrayList<>();
+        for (long connectionId : connectionGraphService.connectionIds(viewerId)) {
+            Entry entry = current.find(connectionId);
+            if (entry != null) {
+                found.add(entry);
+            }
+        }
+        Entry[] entries = found.toArray(new Entry[0]);
+        Arrays.sort(entries, BY_KEY);
+        synchronized (connectionsByViewer) {
+            connectionsByViewer.put(viewerId, new CachedConnections(entries, now + connectionCacheTtlSeconds * 1_000_000_000L));
+        }
+        return entries;
+    }
+
+    // Usernames are still loading after startup; fall back to an indexed prefix query
+    private List<UsernameMatch> scanWhileLoading(Long viewerId, String key, int n) {
+        String pattern = key.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return jdbcTemplate.query("SELECT id, username FROM users WHERE username LIKE ? AND id <> ? ORDER BY username LIMIT ?",
+                (rs, rowNum) -> new UsernameMatch(rs.getLong("id"), rs.getString("username"), false),
+                pattern, viewerId, n);
+    }
+
+    private static int lowerBound(Entry[] entries, String key) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid].key.compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Entry[] merge(Entry[] base, Entry[] pending, Comparator<Entry> order) {
+        Entry[] merged = new Entry[base.length + pending.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < base.length || j < pending.length) {
+            if (j >= pending.length || (i < base.length && order.compare(base[i], pending[j]) <= 0)) {
+                merged[k++] = base[i++];
+            } else {
+                merged[k++] = pending[j++];
+            }
+        }
+        return merged;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        loadExecutor.shutdown();
+    }
+
+    // key is the lower-cased username; toLowerCase returns the same string when nothing changes
+    private record Entry(String key, String username, long userId) {
+        static Entry of(long userId, String username) {
+            return new Entry(username.toLowerCase(Locale.ROOT), username, userId);
+        }
+    }
+
+    private record CachedConnections(Entry[] entries, long expiresAt) {
+    }
+
+    private record State(Snapshot base, Entry[] pending) {
+        Entry find(long userId) {
+            Entry entry = base.find(userId);
+            if (entry != null) {
+                return entry;
+            }
+            for (Entry candidate : pending) {
+                if (candidate.userId == userId) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Entries sorted by key for prefix ranges, and by user id for finding a connection's name
+    private record Snapshot(Entry[] entries, Entry[] byUserId, long[] sortedUserIds) {
+        static Snapshot of(Entry[] entries) {
+            Entry[] byUserId = entries.clone();
+            Arrays.sort(byUserId, BY_USER_ID);
+            return new Snapshot(entries, byUserId, userIds(byUserId));
+        }
+
+        // Linear in the snapshot size; the pending entries are sorted by key
+        Snapshot merge(Entry[] pending) {
+            Entry[] pendingByUserId = pending.clone();
+            Arrays.sort(pendingByUserId, BY_USER_ID);
+            Entry[] merged = UsernameTypeaheadService.merge(byUserId, pendingByUserId, BY_USER_ID);
+            return new Snapshot(UsernameTypeaheadService.merge(entries, pending, BY_KEY), merged, userIds(merged));
+        }
+
+        Entry find(long userId) {
+            int index = Arrays.binarySearch(sortedUserIds, userId);
+            return index >= 0 ? byUserId[index] : null;
+        }
+
+        private static long[] userIds(Entry[] byUserId) {
+            long[] ids = new long[byUserId.length];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = byUserId[i].userId;
+            }
+            return ids;
+        }
+    }
+}
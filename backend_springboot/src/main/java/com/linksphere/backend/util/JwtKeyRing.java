@@ -0,0 +1,229 @@
+package com.linksphere.backend.util;
+
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HS512 signing keys shared by every node, identified by key id ("kid").
+ *
+ * New tokens are signed with the active key and carry its kid in the JWT
+ * header; verification picks the key by that kid. To rotate, add the new key
+ * next to the old one and make it active, then remove the old key once the
+ * tokens it signed have expired (jwt.expiration).
+ *
+ * Keys come from, in order of precedence: jwt.keys-file (a properties file
+ * of kid=secret lines plus active=kid, re-read periodically so rotation
+ * needs no restart), jwt.keys (kid:secret,kid:secret) with
+ * jwt.active-key-id, or the single jwt.secret under kid "default".
+ *
+ * Every secret is written as "base64:" followed by standard base64 of at
+ * least 32 random bytes (openssl rand -base64 64); 64 bytes or more signs
+ * with HS512. Startup fails when no key is configured or a key is missing
+ * the prefix, is a known placeholder or is too short, since a guessable key
+ * lets anyone mint tokens for any account.
+ */
+@Component
+public class JwtKeyRing {
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+    private static final int MIN_KEY_BYTES = 32; // HS256; 64 bytes or more selects HS512
+    private static final String DEFAULT_KEY_ID = "default";
+    private static final String BASE64_PREFIX = "base64:";
+    private static final Set<String> PLACEHOLDER_SECRETS = Set.of("your-secret-key", "secret", "changeme", "change-me");
+
+    @Value("${jwt.secret:}")
+    private String secret;
+
+    @Value("${jwt.keys:}")
+    private String keys;
+
+    @Value("${jwt.active-key-id:}")
+    private String activeKeyId;
+
+    @Value("${jwt.keys-file:}")
+    private String keysFile;
+
+    @Value("${jwt.keys-reload-interval-ms:60000}")
+    private long reloadIntervalMs;
+
+    private final ScheduledExecutorService reloadExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "jwt-key-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Ring ring;
+    private volatile long generation;
+
+    @PostConstruct
+    public void load() {
+        Ring loaded = readRing();
+        if (loaded == null) {
+            throw new IllegalStateException("No JWT signing keys configured; set jwt.secret (e.g. via JWT_SECRET), " +
+                    "jwt.keys or jwt.keys-file to base64:<output of openssl rand -base64 64>");
+        }
+        install(loaded);
+        if (!keysFile.isBlank()) {
+            reloadExecutor.scheduleWithFixedDelay(this::reloadQuietly, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public String getActiveKeyId() {
+        return ring.activeKeyId;
+    }
+
+    public Key getActiveKey() {
+        Ring current = ring;
+        return current.keys.get(current.activeKeyId);
+    }
+
+    // null for an unknown (e.g. retired) kid
+    public Key getKey(String keyId) {
+        return ring.keys.get(keyId);
+    }
+
+    // Changes whenever keys are added or removed, so caches of verified tokens can be dropped
+    public long getGeneration() {
+        return generation;
+    }
+
+    private void reloadQuietly() {
+        try {
+            Ring loaded = readRing();
+            if (loaded != null && !loaded.sameAs(ring)) {
+                install(loaded);
+            }
+        } catch (Exception e) {
+            logger.error("Error reloading JWT keys, keeping the current ones: {}", e.getMessage(), e);
+        }
+    }
+
+    private void install(Ring loaded) {
+        ring = loaded;
+        generation++;
+        logger.info("Loaded {} JWT signing keys {}, active key: {}", loaded.keys.size(), loaded.keys.keySet(), loaded.activeKeyId);
+    }
+
+    private Ring readRing() {
+        if (!keysFile.isBlank()) {
+            Path path = Paths.get(keysFile);
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read JWT keys file " + path, e);
+            }
+            String active = properties.getProperty("active", "");
+            properties.remove("active");
+            Map<String, Key> ringKeys = new LinkedHashMap<>();
+            properties.stringPropertyNames().stream().sorted()
+                    .forEach(kid -> ringKeys.put(kid, toKey(kid, properties.getProperty(kid))));
+            return Ring.of(ringKeys, active);
+        }
+        if (!keys.isBlank()) {
+            Map<String, Key> ringKeys = new LinkedHashMap<>();
+            for (String entry : keys.split(",")) {
+                int split = entry.indexOf(':');
+                if (split <= 0) {
+                    throw new IllegalStateException("jwt.keys entries must be kid:base64:<secret>");
+                }
+                String kid = entry.substring(0, split).trim();
+                ringKeys.put(kid, toKey(kid, entry.substring(split + 1).trim()));
+            }
+            return Ring.of(ringKeys, activeKeyId);
+        }
+        if (!secret.isBlank()) {
+            Map<String, Key> ringKeys = new LinkedHashMap<>();
+            ringKeys.put(DEFAULT_KEY_ID, toKey(DEFAULT_KEY_ID, secret));
+            return Ring.of(ringKeys, DEFAULT_KEY_ID);
+        }
+        return null;
+    }
+
+    static Key toKey(String kid, String encoded) {
+        String value = encoded == null ? "" : encoded.trim();
+        if (PLACEHOLDER_SECRETS.contains(value.toLowerCase(Locale.ROOT))) {
+            throw new IllegalStateException("JWT key '" + kid + "' is a placeholder; generate a random secret");
+        }
+        if (!value.startsWith(BASE64_PREFIX)) {
+            throw new IllegalStateException("JWT key '" + kid + "' must be written as base64:<secret>");
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(value.substring(BASE64_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("JWT key '" + kid + "' is not valid base64", e);
+        }
+        if (bytes.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("JWT key '" + kid + "' has " + bytes.length +
+                    " bytes; at least " + MIN_KEY_BYTES + " random bytes are required");
+        }
+        // Sized to the secret: HS256 from 32 bytes, HS384 from 48, HS512 from 64
+        return Keys.hmacShaKeyFor(bytes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
+
+    private static class Ring {
+        final Map<String, Key> keys;
+        final String activeKeyId;
+
+        private Ring(Map<String, Key> keys, String activeKeyId) {
+            this.keys = keys;
+            this.activeKeyId = activeKeyId;
+        }
+
+        static Ring of(Map<String, Key> keys, String activeKeyId) {
+            if (keys.isEmpty()) {
+                throw new IllegalStateException("JWT key ring is empty");
+            }
+            String active = activeKeyId;
+            if (active == null || active.isBlank()) {
+                // Without an explicit choice the last listed key signs
+                active = keys.keySet().stream().reduce((first, second) -> second).orElseThrow();
+            }
+            if (!keys.containsKey(active)) {
+                throw new IllegalStateException("Active JWT key '" + active + "' is not in the key ring");
+            }
+            return new Ring(Collections.unmodifiableMap(keys), active);
+        }
+
+        boolean sameAs(Ring other) {
+            if (other == null || !activeKeyId.equals(other.activeKeyId) || !keys.keySet().equals(other.keys.keySet())) {
+                return false;
+            }
+            for (Map.Entry<String, Key> entry : keys.entrySet()) {
+                if (!MessageDigest.isEqual(entry.getValue().getEncoded(), other.keys.get(entry.getKey()).getEncoded())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,34 +1,109 @@
 package com.linksphere.backend.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
-    private static final Key SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS512);
-    private static final long EXPIRATION_TIME = 1000 * 60 * 60 * 24; // 24 hours
+    private final JwtKeyRing keyRing;
+
+    // Parsers are immutable and thread-safe, so one is built up front instead of per call;
+    // the key is looked up per token by the kid in its header
+    private final JwtParser parser;
+
+    // Claims of tokens whose signature has already been checked, keyed by a hash of the token
+    private final Map<String, Claims> verifiedTokens = new ConcurrentHashMap<>();
+    private volatile long verifiedGeneration;
+
+    @Value("${jwt.expiration:86400000}")
+    private long expirationMs;
+
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    public JwtUtil(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            // jjwt-api 0.11 declares this parameter raw, so JwsHeader<?> would not override it
+            @Override
+            @SuppressWarnings("rawtypes")
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                Key key = header.getKeyId() != null ? keyRing.getKey(header.getKeyId()) : null;
+                if (key == null) {
+                    throw new SignatureException("Unknown JWT signing key: " + header.getKeyId());
+                }
+                return key;
+            }
+        }).build();
+    }
 
     public String generateToken(String email, String role) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role);
+        long now = System.currentTimeMillis();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.getActiveKeyId())
                 .setClaims(claims)
                 .setSubject(email)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(SECRET_KEY)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expirationMs))
+                // The algorithm follows the key size (HS512 for 64-byte secrets)
+                .signWith(keyRing.getActiveKey())
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiry and returns the claims, parsing the
+     * token at most once for its lifetime. Throws the parser's JwtException
+     * (ExpiredJwtException included) for a bad token.
+     */
+    public Claims verify(String token) {
+        long generation = keyRing.getGeneration();
+        if (generation != verifiedGeneration) {
+            // A key may have been retired; make every cached token prove itself again
+            verifiedTokens.clear();
+            verifiedGeneration = generation;
+        }
+
+        String key = hash(token);
+        Claims cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.getExpiration().after(new Date())) {
+                return cached;
+            }
+            verifiedTokens.remove(key);
+        }
+
+        // Throws ExpiredJwtException once the token has expired
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            if (verifiedTokens.size() >= verifiedCacheSize) {
+                evictExpired();
+            }
+            if (verifiedTokens.size() < verifiedCacheSize) {
+                verifiedTokens.put(key, claims);
+            }
+        }
+        return claims;
+    }
+
     public String extractEmail(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -38,28 +113,31 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verify(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
     public Boolean isTokenValid(String token, String email) {
-        final String extractedEmail = extractEmail(token);
-        return (extractedEmail.equals(email) && !isTokenExpired(token));
+        final Claims claims = verify(token);
+        return claims.getSubject().equals(email) && claims.getExpiration().after(new Date());
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private void evictExpired() {
+        Date now = new Date();
+        verifiedTokens.values().removeIf(claims -> !claims.getExpiration().after(now));
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            // Still full of live tokens; start over rather than track recency on the hot path
+            verifiedTokens.clear();
+        }
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    // Hashed so the cache never holds usable bearer tokens
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-}
\ No newline at end of file
+}
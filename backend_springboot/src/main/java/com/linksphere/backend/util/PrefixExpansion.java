@@ -0,0 +1,51 @@
+package com.linksphere.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Chooses the posting lists a prefix query expands to.
+ *
+ * Every term starting with the prefix is used while their postings together
+ * fit the budget. Past it, the largest lists are taken first and smaller ones
+ * fill what is left, so the terms dropped are the rarest, which can add the
+ * fewest matches, rather than whichever sort last alphabetically.
+ */
+public final class PrefixExpansion {
+
+    private PrefixExpansion() {
+    }
+
+    // The largest list is always kept, even when it alone exceeds the budget
+    public static <T> List<T> select(Collection<T> postings, ToIntFunction<T> size, long budget) {
+        List<T> all = new ArrayList<>(postings);
+        int[] sizes = new int[all.size()];
+        long total = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = size.applyAsInt(all.get(i));
+            total += sizes[i];
+        }
+        if (total <= budget) {
+            return all;
+        }
+
+        Integer[] bySize = new Integer[sizes.length];
+        for (int i = 0; i < bySize.length; i++) {
+            bySize[i] = i;
+        }
+        Arrays.sort(bySize, Comparator.comparingInt((Integer i) -> sizes[i]).reversed());
+        List<T> selected = new ArrayList<>();
+        long used = 0;
+        for (int i : bySize) {
+            if (used + sizes[i] <= budget || selected.isEmpty()) {
+                selected.add(all.get(i));
+                used += sizes[i];
+            }
+        }
+        return selected;
+    }
+}
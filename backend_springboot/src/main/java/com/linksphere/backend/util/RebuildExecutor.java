@@ -0,0 +1,68 @@
+package com.linksphere.backend.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The single background thread an in-memory index is rebuilt on.
+ *
+ * The startup rebuild goes through retryUntilDone: if the database is not
+ * reachable yet or the scan fails, the attempt is repeated after 5 seconds,
+ * doubling up to 5 minutes, until it succeeds. Without that a failed first
+ * rebuild left the index not ready for the life of the process and every
+ * call on the slow SQL fallback.
+ */
+public class RebuildExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(RebuildExecutor.class);
+    private static final long INITIAL_RETRY_MS = 5_000;
+    private static final long MAX_RETRY_MS = 300_000;
+
+    private final String name;
+    private final long initialRetryMs;
+    private final long maxRetryMs;
+    private final ScheduledExecutorService executor;
+
+    public RebuildExecutor(String name) {
+        this(name, INITIAL_RETRY_MS, MAX_RETRY_MS);
+    }
+
+    RebuildExecutor(String name, long initialRetryMs, long maxRetryMs) {
+        this.name = name;
+        this.initialRetryMs = initialRetryMs;
+        this.maxRetryMs = maxRetryMs;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = executor;
+    }
+
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    // attempt returns whether it succeeded; failures are expected to have been logged by it
+    public void retryUntilDone(BooleanSupplier attempt) {
+        executor.execute(() -> run(attempt, initialRetryMs));
+    }
+
+    private void run(BooleanSupplier attempt, long delayMs) {
+        if (attempt.getAsBoolean() || executor.isShutdown()) {
+            return;
+        }
+        logger.warn("{} failed, retrying in {} ms", name, delayMs);
+        executor.schedule(() -> run(attempt, Math.min(delayMs * 2, maxRetryMs)), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
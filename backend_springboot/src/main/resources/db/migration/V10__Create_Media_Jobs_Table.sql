@@ -0,0 +1,12 @@
+CREATE TABLE media_jobs (
+    file_name VARCHAR(80) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    KEY idx_media_jobs_status (status, created_at)
+);
+
+-- Comma-separated variant names that exist next to the original (e.g. "thumb,small,medium")
+ALTER TABLE media_objects ADD COLUMN variants VARCHAR(255) NULL;
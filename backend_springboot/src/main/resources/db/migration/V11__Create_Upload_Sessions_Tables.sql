@@ -0,0 +1,23 @@
+CREATE TABLE upload_sessions (
+    id CHAR(36) PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    chunk_size INT NOT NULL,
+    sha256 CHAR(64),
+    status VARCHAR(16) NOT NULL DEFAULT 'OPEN',
+    media_url VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    KEY idx_upload_sessions_status (status, updated_at)
+);
+
+CREATE TABLE upload_chunks (
+    upload_id CHAR(36) NOT NULL,
+    chunk_index INT NOT NULL,
+    sha256 CHAR(64) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (upload_id, chunk_index),
+    FOREIGN KEY (upload_id) REFERENCES upload_sessions(id) ON DELETE CASCADE
+);
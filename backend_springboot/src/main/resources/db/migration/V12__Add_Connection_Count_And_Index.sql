@@ -0,0 +1,8 @@
+-- Keyset pagination of a user's connections walks (created_at DESC, id DESC)
+CREATE INDEX idx_connections_user_created ON connections (user_id, created_at, id);
+
+-- Denormalized connection total, maintained by connect/disconnect
+ALTER TABLE users ADD COLUMN connection_count INT NOT NULL DEFAULT 0;
+
+UPDATE users u
+SET connection_count = (SELECT COUNT(*) FROM connections c WHERE c.user_id = u.id);
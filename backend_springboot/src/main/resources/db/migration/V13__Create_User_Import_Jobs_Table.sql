@@ -0,0 +1,17 @@
+-- Bulk user imports; lines_processed is committed with each chunk so a job resumes exactly where it stopped
+CREATE TABLE user_import_jobs (
+    id CHAR(36) PRIMARY KEY,
+    created_by BIGINT NOT NULL,
+    format VARCHAR(8) NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    total_lines BIGINT NOT NULL DEFAULT 0,
+    lines_processed BIGINT NOT NULL DEFAULT 0,
+    imported BIGINT NOT NULL DEFAULT 0,
+    skipped BIGINT NOT NULL DEFAULT 0,
+    failed BIGINT NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (created_by) REFERENCES users(id) ON DELETE CASCADE,
+    KEY idx_user_import_jobs_status (status)
+);
@@ -0,0 +1,2 @@
+-- Optimistic concurrency for profile updates; also the profile's ETag
+ALTER TABLE profiles ADD COLUMN version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- One row per user whose denormalized author fields in posts/comments need rewriting.
+-- generation is bumped by every new change, which restarts a job already in progress.
+CREATE TABLE author_propagation_jobs (
+    user_id BIGINT PRIMARY KEY,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    generation INT NOT NULL DEFAULT 0,
+    last_post_id BIGINT NOT NULL DEFAULT 0,
+    last_comment_id BIGINT NOT NULL DEFAULT 0,
+    posts_updated BIGINT NOT NULL DEFAULT 0,
+    comments_updated BIGINT NOT NULL DEFAULT 0,
+    requested_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    KEY idx_author_propagation_jobs_status (status, requested_at)
+);
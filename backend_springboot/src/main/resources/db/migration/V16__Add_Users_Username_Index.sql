@@ -0,0 +1,2 @@
+-- Username prefix lookups (LIKE 'abc%') while the typeahead index is loading
+CREATE INDEX idx_users_username ON users (username);
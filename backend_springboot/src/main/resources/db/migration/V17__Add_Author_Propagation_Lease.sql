@@ -0,0 +1,3 @@
+-- Several nodes share the queue: a RUNNING job belongs to owner until lease_expires_at, which the owner
+-- extends at every checkpoint; a job whose lease has run out was left by a stopped node and may be taken over
+ALTER TABLE author_propagation_jobs ADD COLUMN owner VARCHAR(36) NULL, ADD COLUMN lease_expires_at TIMESTAMP NULL;
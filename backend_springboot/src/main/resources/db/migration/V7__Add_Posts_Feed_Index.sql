@@ -0,0 +1,2 @@
+-- Keyset pagination for the home feed walks posts by (created_at DESC, id DESC)
+CREATE INDEX idx_posts_created_at_id ON posts (created_at, id);
@@ -0,0 +1,2 @@
+-- Comment threads are paged per post by (created_at DESC, id DESC)
+CREATE INDEX idx_comments_post_created_at_id ON comments (post_id, created_at, id);
@@ -0,0 +1,10 @@
+CREATE TABLE media_objects (
+    file_name VARCHAR(80) PRIMARY KEY,
+    hash CHAR(64) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    ref_count INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    KEY idx_media_hash (hash),
+    KEY idx_media_orphans (ref_count, updated_at)
+);
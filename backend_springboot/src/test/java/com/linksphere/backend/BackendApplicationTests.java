@@ -3,7 +3,8 @@ package com.linksphere.backend;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// JwtKeyRing refuses to start without a real secret; this one is for tests only
+@SpringBootTest(properties = "jwt.secret=base64:dGVzdC1vbmx5LWp3dC1zZWNyZXQtZm9yLWNvbnRleHQtbG9hZHMtMDEyMzQ1Njc4OWFiY2RlZg==")
 class BackendApplicationTests {
 
 	@Test
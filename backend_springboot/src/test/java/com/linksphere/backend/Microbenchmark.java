@@ -0,0 +1,40 @@
+package com.linksphere.backend;
+
+import java.util.function.Supplier;
+
+/**
+ * Minimal timing loop for the benchmark-tagged tests, which run only with
+ * the benchmark profile (mvn test -Pbenchmark). JMH is not a dependency of
+ * this build, so this keeps to the basics: a warm-up, several timed rounds,
+ * the best round reported, and results folded into a sink so the JIT cannot
+ * drop the work.
+ */
+public final class Microbenchmark {
+    private static final int ROUNDS = 5;
+    private static volatile int sink;
+
+    private Microbenchmark() {
+    }
+
+    // Mean nanoseconds per call in the fastest round
+    public static double nanosPerOp(String name, int iterations, Supplier<?> operation) {
+        run(operation, iterations); // warm-up
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long startedAt = System.nanoTime();
+            run(operation, iterations);
+            best = Math.min(best, (System.nanoTime() - startedAt) / (double) iterations);
+        }
+        System.out.printf("%-50s %12.1f ns/op%n", name, best);
+        return best;
+    }
+
+    private static void run(Supplier<?> operation, int iterations) {
+        int folded = 0;
+        for (int i = 0; i < iterations; i++) {
+            Object result = operation.get();
+            folded += result == null ? 0 : System.identityHashCode(result);
+        }
+        sink += folded;
+    }
+}
@@ -0,0 +1,146 @@
+package com.linksphere.backend.controllers;
+
+import com.linksphere.backend.Microbenchmark;
+import com.linksphere.backend.services.MediaStorageService;
+import com.linksphere.backend.services.ThumbnailService;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Throughput of UploadsController against the plain /uploads/** resource
+ * handler it replaced, both behind one DispatcherServlet on an embedded
+ * Tomcat with a random port, so the new path gets real sendfile. Covers a
+ * full image, a full video and 1 MB Range requests into the video, one
+ * request at a time over a keep-alive connection.
+ *
+ * mvn -B test -Pbenchmark -Dtest=MediaServingBenchmark
+ */
+@Tag("benchmark")
+class MediaServingBenchmark {
+    private static final int IMAGE_SIZE = 200 * 1024;
+    private static final int VIDEO_SIZE = 64 * 1024 * 1024;
+    private static final int RANGE_SIZE = 1024 * 1024;
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void controllerAgainstResourceHandler() throws Exception {
+        Random random = new Random(42);
+        String image = write(random, IMAGE_SIZE, "jpg");
+        String video = write(random, VIDEO_SIZE, "mp4");
+
+        MediaStorageService mediaStorageService = new MediaStorageService(mock(JdbcTemplate.class), mock(ThumbnailService.class));
+        ReflectionTestUtils.setField(mediaStorageService, "uploadDir", uploadDir.toString());
+
+        GenericWebApplicationContext mvc = new GenericWebApplicationContext();
+        AnnotationConfigUtils.registerAnnotationConfigProcessors(mvc);
+        mvc.registerBean(MvcConfig.class);
+        mvc.registerBean(UploadsController.class, () -> new UploadsController(mediaStorageService));
+        // What WebConfig registered before UploadsController took over /uploads/**
+        mvc.registerBean(WebMvcConfigurer.class, () -> new WebMvcConfigurer() {
+            @Override
+            public void addResourceHandlers(ResourceHandlerRegistry registry) {
+                registry.addResourceHandler("/legacy/**")
+                        .addResourceLocations("file:" + uploadDir.toAbsolutePath() + "/")
+                        .resourceChain(false)
+                        .addResolver(new PathResourceResolver());
+            }
+        });
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createDirectories(uploadDir.resolve(".tomcat")).toString());
+        tomcat.setPort(0);
+        tomcat.getConnector();
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "dispatcher", new DispatcherServlet(mvc));
+        context.addServletMappingDecoded("/", "dispatcher");
+        tomcat.start();
+        try {
+            String base = "http://localhost:" + tomcat.getConnector().getLocalPort();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            for (String path : new String[] { "/legacy/", "/uploads/" }) {
+                String name = path.equals("/uploads/") ? "UploadsController" : "resource handler";
+                // Both paths must send whole bodies for the numbers to compare
+                HttpResponse<byte[]> full = client.send(HttpRequest.newBuilder(URI.create(base + path + image)).build(),
+                        HttpResponse.BodyHandlers.ofByteArray());
+                assertEquals(200, full.statusCode());
+                assertEquals(IMAGE_SIZE, full.body().length);
+                HttpResponse<byte[]> partial = client.send(HttpRequest.newBuilder(URI.create(base + path + video))
+                        .header("Range", "bytes=0-" + (RANGE_SIZE - 1)).build(), HttpResponse.BodyHandlers.ofByteArray());
+                assertEquals(206, partial.statusCode());
+                assertEquals(RANGE_SIZE, partial.body().length);
+
+                report(name + ", 200 KB image", IMAGE_SIZE,
+                        Microbenchmark.nanosPerOp(name + ", 200 KB image", 2_000, () -> get(client, base + path + image, null)));
+                report(name + ", 64 MB video", VIDEO_SIZE,
+                        Microbenchmark.nanosPerOp(name + ", 64 MB video", 10, () -> get(client, base + path + video, null)));
+                report(name + ", 1 MB range", RANGE_SIZE,
+                        Microbenchmark.nanosPerOp(name + ", 1 MB range", 500, () -> {
+                            long start = (long) random.nextInt(VIDEO_SIZE / RANGE_SIZE) * RANGE_SIZE;
+                            return get(client, base + path + video, "bytes=" + start + "-" + (start + RANGE_SIZE - 1));
+                        }));
+            }
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+            mvc.close();
+        }
+    }
+
+    private String write(Random random, int size, String extension) throws Exception {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        Path temp = uploadDir.resolve("upload." + extension);
+        Files.write(temp, bytes);
+        // Content-addressed, as stored uploads are, so the controller marks it immutable
+        String fileName = MediaStorageService.sha256(temp) + "." + extension;
+        Files.move(temp, uploadDir.resolve(fileName));
+        return fileName;
+    }
+
+    private static HttpResponse<Void> get(HttpClient client, String url, String range) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url));
+        if (range != null) {
+            request.header("Range", range);
+        }
+        try {
+            return client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void report(String name, long bytes, double nanosPerOp) {
+        System.out.printf("%-50s %12.1f MB/s%n", name, bytes / (nanosPerOp / 1e9) / (1024 * 1024));
+    }
+
+    @Configuration
+    @EnableWebMvc
+    static class MvcConfig {
+    }
+}
@@ -0,0 +1,382 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.dto.MutualConnections;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConnectionGraphServiceTest {
+    private static final int MAX_DEGREE = 3;
+
+    @Test
+    void loadsTheCsrFromOrderedRows() {
+        Reference reference = randomGraph(new Random(1), 200, 600, 2);
+        ConnectionGraphService.Graph graph = load(reference, reference.userIds());
+
+        assertEquals(reference.userIds().size(), graph.vertexCount());
+        assertEquals(reference.edgeCount(), graph.edgeCount());
+        assertAdjacencyMatches(reference, graph);
+    }
+
+    @Test
+    void loadsEdgesOfUsersMissingFromTheUserScan() {
+        // Users registered while the table is scanned only show up in connection rows,
+        // so their vertices are created out of id order and their rows arrive late
+        Reference reference = randomGraph(new Random(2), 150, 500, 1);
+        List<Long> scanned = new ArrayList<>(reference.userIds());
+        scanned.removeIf(id -> id % 7 == 0);
+        ConnectionGraphService.Graph graph = load(reference, scanned);
+
+        assertEquals(reference.edgeCount(), graph.edgeCount());
+        assertAdjacencyMatches(reference, graph);
+    }
+
+    @Test
+    void patchesAndCompactsToTheSameAdjacency() {
+        Random random = new Random(3);
+        Reference reference = randomGraph(random, 300, 900, 3);
+        ConnectionGraphService.Graph graph = load(reference, reference.userIds());
+
+        for (int round = 0; round < 4; round++) {
+            for (int change = 0; change < 400; change++) {
+                long a = 1 + random.nextInt(320); // a few brand-new users too
+                long b = 1 + random.nextInt(320);
+                if (a == b) {
+                    continue;
+                }
+                boolean connect = random.nextInt(3) != 0;
+                graph.setEdge(a, b, connect);
+                reference.set(a, b, connect);
+            }
+            assertEquals(reference.edgeCount(), graph.edgeCount());
+            assertAdjacencyMatches(reference, graph);
+            graph.compact();
+            assertEquals(reference.edgeCount(), graph.edgeCount());
+            assertAdjacencyMatches(reference, graph);
+        }
+    }
+
+    @Test
+    void degreesMatchABreadthFirstReference() {
+        for (long seed = 10; seed < 15; seed++) {
+            Random random = new Random(seed);
+            Reference reference = randomGraph(random, 400, 700, 2);
+            ConnectionGraphService service = service(reference);
+
+            List<Long> others = new ArrayList<>(reference.userIds());
+            others.add(9_999L); // unknown user
+            for (int i = 0; i < 20; i++) {
+                long userId = 1 + random.nextInt(400);
+                Map<Long, Integer> degrees = service.degrees(userId, others);
+                for (Long other : others) {
+                    assertEquals(reference.degree(userId, other, MAX_DEGREE), degrees.get(other),
+                            "degree from " + userId + " to " + other + " (seed " + seed + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    void degreesFollowConnectsAndDisconnects() {
+        Random random = new Random(20);
+        Reference reference = randomGraph(random, 250, 350, 1);
+        ConnectionGraphService service = service(reference);
+
+        for (int change = 0; change < 300; change++) {
+            long a = 1 + random.nextInt(250);
+            long b = 1 + random.nextInt(250);
+            if (a == b) {
+                continue;
+            }
+            if (random.nextBoolean()) {
+                service.addConnection(a, b);
+                reference.set(a, b, true);
+            } else {
+                service.removeConnection(a, b);
+                reference.set(a, b, false);
+            }
+            if (change % 50 == 0) {
+                long userId = 1 + random.nextInt(250);
+                Map<Long, Integer> degrees = service.degrees(userId, reference.userIds());
+                for (Long other : reference.userIds()) {
+                    assertEquals(reference.degree(userId, other, MAX_DEGREE), degrees.get(other));
+                }
+            }
+        }
+    }
+
+    @Test
+    void suggestionsRankFriendsOfFriendsByMutualCount() {
+        Random random = new Random(30);
+        Reference reference = randomGraph(random, 300, 1200, 2);
+        ConnectionGraphService service = service(reference);
+
+        for (int i = 0; i < 20; i++) {
+            long userId = 1 + random.nextInt(300);
+            long[] page = service.suggest(userId, 0, 20);
+            Set<Long> connected = reference.neighbours(userId);
+            int previous = Integer.MAX_VALUE;
+            for (long suggested : page) {
+                assertTrue(suggested != userId && !connected.contains(suggested));
+                int mutual = reference.mutual(userId, suggested).size();
+                if (mutual == 0) {
+                    previous = 0; // popular users fill the rest of the page
+                    continue;
+                }
+                assertTrue(mutual <= previous, "suggestions out of order for " + userId);
+                previous = mutual;
+            }
+            // Nobody left out may share more connections than the weakest one ranked
+            int weakest = page.length == 0 ? 0 : reference.mutual(userId, page[page.length - 1]).size();
+            Set<Long> listed = new TreeSet<>();
+            Arrays.stream(page).forEach(listed::add);
+            for (Long candidate : reference.userIds()) {
+                if (candidate != userId && !connected.contains(candidate) && !listed.contains(candidate)) {
+                    assertTrue(reference.mutual(userId, candidate).size() <= Math.max(weakest, 0));
+                }
+            }
+        }
+    }
+
+    @Test
+    void mutualConnectionsMatchSetIntersection() {
+        for (long seed = 40; seed < 45; seed++) {
+            Random random = new Random(seed);
+            // Hubs against ordinary users take the galloping kernel, similar lists the linear merge
+            Reference reference = randomGraph(random, 500, 1500, 4);
+            ConnectionGraphService service = service(reference);
+            List<Long> others = new ArrayList<>(reference.userIds());
+            others.add(9_999L);
+
+            for (int i = 0; i < 25; i++) {
+                long userId = 1 + random.nextInt(500);
+                Map<Long, MutualConnections> mutuals = service.mutualConnections(userId, others, 3);
+                for (Long other : others) {
+                    TreeSet<Long> expected = other == userId ? new TreeSet<>() : reference.mutual(userId, other);
+                    MutualConnections actual = mutuals.get(other);
+                    assertEquals(expected.size(), actual.getCount(), "mutuals of " + userId + " and " + other);
+                    assertEquals(Math.min(3, expected.size()), actual.getUserIds().size());
+                    assertTrue(expected.containsAll(actual.getUserIds()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void mutualConnectionsBetweenAHubAndASmallList() {
+        Reference reference = new Reference();
+        for (long userId = 2; userId <= 2000; userId++) {
+            reference.set(1, userId, true); // the hub
+        }
+        for (long userId = 3; userId <= 2000; userId += 97) {
+            reference.set(2, userId, true);
+        }
+        reference.set(2, 5000, true); // beyond the hub's list
+        ConnectionGraphService service = service(reference);
+
+        assertEquals(reference.mutual(1, 2).size(), service.mutualConnections(1, List.of(2L), 0).get(2L).getCount());
+        assertEquals(reference.mutual(2, 1).size(), service.mutualConnections(2, List.of(1L), 0).get(1L).getCount());
+        assertEquals(reference.mutual(2, 5000).size(), service.mutualConnections(2, List.of(5000L), 0).get(5000L).getCount());
+    }
+
+    @Test
+    void nearDegreesMatchTheReference() {
+        Random random = new Random(50);
+        Reference reference = randomGraph(random, 400, 900, 2);
+        ConnectionGraphService service = service(reference);
+        long[] candidates = reference.userIds().stream().mapToLong(Long::longValue).toArray();
+
+        for (int i = 0; i < 20; i++) {
+            long userId = 1 + random.nextInt(400);
+            int[] near = service.nearDegrees(userId, candidates);
+            for (int c = 0; c < candidates.length; c++) {
+                Integer degree = reference.degree(userId, candidates[c], 2);
+                int expected = degree == null || degree == 0 ? -1 : degree;
+                assertEquals(expected, near[c], "near degree from " + userId + " to " + candidates[c]);
+            }
+        }
+    }
+
+    static ConnectionGraphService service(Reference reference) {
+        ConnectionGraphService service = new ConnectionGraphService(jdbcTemplate(reference, reference.userIds()));
+        ReflectionTestUtils.setField(service, "maxResults", 100);
+        ReflectionTestUtils.setField(service, "maxFanout", 10_000);
+        ReflectionTestUtils.setField(service, "maxDegree", MAX_DEGREE);
+        service.rebuild();
+        assertTrue(service.isReady());
+        return service;
+    }
+
+    static ConnectionGraphService.Graph load(Reference reference, List<Long> scannedUserIds) {
+        return ConnectionGraphService.Graph.load(jdbcTemplate(reference, scannedUserIds), 50);
+    }
+
+    // Answers the users scan and then the connections scan, in the order their ORDER BY gives
+    private static JdbcTemplate jdbcTemplate(Reference reference, List<Long> scannedUserIds) {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        List<long[]> users = new ArrayList<>();
+        for (Long userId : scannedUserIds) {
+            users.add(new long[] { userId });
+        }
+        List<long[]> connections = reference.rows();
+        AtomicInteger scan = new AtomicInteger();
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            List<long[]> rows = scan.getAndIncrement() % 2 == 0 ? users : connections;
+            long[][] current = new long[1][];
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(anyInt())).thenAnswer(column -> current[0][column.<Integer>getArgument(0) - 1]);
+            for (long[] row : rows) {
+                current[0] = row;
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenAnswer(invocation -> (long) connections.size());
+        return jdbcTemplate;
+    }
+
+    private static void assertAdjacencyMatches(Reference reference, ConnectionGraphService.Graph graph) {
+        for (Long userId : reference.userIds()) {
+            int v = graph.ordinal(userId);
+            Set<Long> expected = reference.neighbours(userId);
+            if (v < 0) {
+                assertTrue(expected.isEmpty(), "missing vertex for " + userId);
+                continue;
+            }
+            int[] adjacency = graph.adjacency(v);
+            int from = graph.adjacencyFrom(v);
+            int to = graph.adjacencyTo(v);
+            long[] actual = new long[to - from];
+            for (int i = from; i < to; i++) {
+                // Neighbour ordinals must be strictly ascending for binary search and intersection
+                assertTrue(i == from || adjacency[i - 1] < adjacency[i], "adjacency of " + userId + " not sorted");
+                actual[i - from] = graph.userId(adjacency[i]);
+            }
+            Arrays.sort(actual);
+            assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), actual, "neighbours of " + userId);
+        }
+    }
+
+    /**
+     * Undirected graph over users 1..userCount with randomEdges random edges,
+     * plus hubs connected to about half of everyone, so neighbour lists
+     * range from a handful to hundreds.
+     */
+    static Reference randomGraph(Random random, int userCount, int randomEdges, int hubs) {
+        Reference reference = new Reference();
+        for (long userId = 1; userId <= userCount; userId++) {
+            reference.adjacency.put(userId, new TreeSet<>());
+        }
+        for (int i = 0; i < randomEdges; i++) {
+            long a = 1 + random.nextInt(userCount);
+            long b = 1 + random.nextInt(userCount);
+            if (a != b) {
+                reference.set(a, b, true);
+            }
+        }
+        for (int h = 0; h < hubs; h++) {
+            long hub = 1 + random.nextInt(userCount);
+            for (long userId = 1; userId <= userCount; userId++) {
+                if (userId != hub && random.nextBoolean()) {
+                    reference.set(hub, userId, true);
+                }
+            }
+        }
+        return reference;
+    }
+
+    // The plain set-based model the graph is checked against
+    static class Reference {
+        final Map<Long, TreeSet<Long>> adjacency = new TreeMap<>();
+
+        void set(long a, long b, boolean connected) {
+            if (connected) {
+                adjacency.computeIfAbsent(a, id -> new TreeSet<>()).add(b);
+                adjacency.computeIfAbsent(b, id -> new TreeSet<>()).add(a);
+            } else {
+                neighbours(a).remove(b);
+                neighbours(b).remove(a);
+            }
+        }
+
+        Set<Long> neighbours(long userId) {
+            return adjacency.getOrDefault(userId, new TreeSet<>());
+        }
+
+        List<Long> userIds() {
+            return new ArrayList<>(adjacency.keySet());
+        }
+
+        long edgeCount() {
+            return adjacency.values().stream().mapToLong(Set::size).sum();
+        }
+
+        // Both directions, ordered by (user_id, connected_user_id) like the connections scan
+        List<long[]> rows() {
+            List<long[]> rows = new ArrayList<>();
+            adjacency.forEach((userId, neighbours) -> neighbours.forEach(other -> rows.add(new long[] { userId, other })));
+            return rows;
+        }
+
+        TreeSet<Long> mutual(long a, long b) {
+            TreeSet<Long> shared = new TreeSet<>(neighbours(a));
+            shared.retainAll(neighbours(b));
+            return shared;
+        }
+
+        Integer degree(long from, long to, int maxDepth) {
+            if (from == to) {
+                return 0;
+            }
+            Map<Long, Integer> depth = new HashMap<>();
+            Deque<Long> queue = new ArrayDeque<>();
+            depth.put(from, 0);
+            queue.add(from);
+            while (!queue.isEmpty()) {
+                long u = queue.poll();
+                int d = depth.get(u);
+                if (d == maxDepth) {
+                    continue;
+                }
+                for (Long w : neighbours(u)) {
+                    if (!depth.containsKey(w)) {
+                        if (w == to) {
+                            return d + 1;
+                        }
+                        depth.put(w, d + 1);
+                        queue.add(w);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.Microbenchmark;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mutual connection counts on a 200k-user graph with four hubs connected to
+ * half of everyone: hub against hub (two long lists, linear merge), hub
+ * against leaf (galloping through the hub's list) and leaf against leaf. A
+ * boxed HashSet intersection of the two hubs is timed alongside for scale.
+ *
+ * mvn -B test -Pbenchmark -Dtest=MutualConnectionsBenchmark
+ */
+@Tag("benchmark")
+class MutualConnectionsBenchmark {
+    private static final int USERS = 200_000;
+    private static final int HUBS = 4;
+    private static final int LEAF_EDGES = 2_000_000;
+    private static final int SAMPLE_SIZE = 3;
+
+    @Test
+    void mutualConnectionsOfHighDegreeUsers() {
+        Random random = new Random(42);
+        int[][] adjacency = randomGraph(random);
+        ConnectionGraphService service = service(adjacency);
+
+        long hub = 1;
+        long otherHub = 2;
+        long[] leaves = new long[1024];
+        for (int i = 0; i < leaves.length; i++) {
+            leaves[i] = HUBS + 1 + random.nextInt(USERS - HUBS);
+        }
+        System.out.printf("hub degree %d and %d, mean leaf degree %.1f%n", adjacency[0].length, adjacency[1].length,
+                (double) (2L * LEAF_EDGES) / USERS);
+
+        Set<Long> hubSet = boxed(adjacency[0]);
+        Set<Long> otherHubSet = boxed(adjacency[1]);
+        int expected = 0;
+        for (Long id : hubSet) {
+            if (otherHubSet.contains(id)) {
+                expected++;
+            }
+        }
+        assertEquals(expected, service.mutualConnections(hub, List.of(otherHub), SAMPLE_SIZE).get(otherHub).getCount());
+
+        List<Long> otherHubOnly = List.of(otherHub);
+        Microbenchmark.nanosPerOp("hub vs hub (CSR merge)", 500,
+                () -> service.mutualConnections(hub, otherHubOnly, SAMPLE_SIZE));
+        Microbenchmark.nanosPerOp("hub vs hub (HashSet<Long> baseline)", 200, () -> {
+            Set<Long> shared = new HashSet<>(hubSet);
+            shared.retainAll(otherHubSet);
+            return shared;
+        });
+        int[] next = new int[1];
+        Microbenchmark.nanosPerOp("hub vs leaf (gallop)", 200_000,
+                () -> service.mutualConnections(hub, List.of(leaves[next[0]++ & 1023]), SAMPLE_SIZE));
+        Microbenchmark.nanosPerOp("leaf vs leaf", 200_000,
+                () -> service.mutualConnections(leaves[next[0]++ & 1023], List.of(leaves[next[0]++ & 1023]), SAMPLE_SIZE));
+
+        // A suggestion page: one viewer against 20 cards, one of them a hub
+        List<Long> page = new ArrayList<>();
+        page.add(otherHub);
+        for (int i = 0; i < 19; i++) {
+            page.add(leaves[i]);
+        }
+        Microbenchmark.nanosPerOp("hub vs page of 20 (one hub)", 500,
+                () -> service.mutualConnections(hub, page, SAMPLE_SIZE));
+    }
+
+    // Users 1..HUBS are hubs connected to a random half of everyone; the rest get random leaf edges
+    private static int[][] randomGraph(Random random) {
+        int[][] adjacency = new int[USERS][];
+        int[] sizes = new int[USERS];
+        for (int v = 0; v < USERS; v++) {
+            adjacency[v] = new int[8];
+        }
+        Set<Long> seen = new HashSet<>();
+        for (int hub = 0; hub < HUBS; hub++) {
+            for (int v = HUBS; v < USERS; v++) {
+                if (random.nextBoolean()) {
+                    addEdge(adjacency, sizes, seen, hub, v);
+                }
+            }
+        }
+        for (int e = 0; e < LEAF_EDGES; e++) {
+            addEdge(adjacency, sizes, seen, HUBS + random.nextInt(USERS - HUBS), HUBS + random.nextInt(USERS - HUBS));
+        }
+        for (int v = 0; v < USERS; v++) {
+            adjacency[v] = Arrays.copyOf(adjacency[v], sizes[v]);
+            Arrays.sort(adjacency[v]);
+        }
+        return adjacency;
+    }
+
+    private static void addEdge(int[][] adjacency, int[] sizes, Set<Long> seen, int a, int b) {
+        if (a == b || !seen.add((long) Math.min(a, b) * USERS + Math.max(a, b))) {
+            return;
+        }
+        append(adjacency, sizes, a, b);
+        append(adjacency, sizes, b, a);
+    }
+
+    private static void append(int[][] adjacency, int[] sizes, int v, int w) {
+        if (sizes[v] == adjacency[v].length) {
+            adjacency[v] = Arrays.copyOf(adjacency[v], sizes[v] * 2);
+        }
+        adjacency[v][sizes[v]++] = w;
+    }
+
+    // Answers the users scan and then the connections scan with ids = index + 1, as the ORDER BYs give them
+    private static ConnectionGraphService service(int[][] adjacency) {
+        long rows = 0;
+        for (int[] neighbours : adjacency) {
+            rows += neighbours.length;
+        }
+        long connectionRows = rows;
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        AtomicInteger scan = new AtomicInteger();
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            boolean users = scan.getAndIncrement() % 2 == 0;
+            int[] row = new int[2];
+            // A plain proxy rather than a mock, so the load time is not mostly Mockito
+            ResultSet rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                    (proxy, method, args) -> {
+                        if (!method.getName().equals("getLong")) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        return (int) args[0] == 1 ? row[0] + 1L : adjacency[row[0]][row[1]] + 1L;
+                    });
+            for (row[0] = 0; row[0] < adjacency.length; row[0]++) {
+                if (users) {
+                    handler.processRow(rs);
+                    continue;
+                }
+                for (row[1] = 0; row[1] < adjacency[row[0]].length; row[1]++) {
+                    handler.processRow(rs);
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(connectionRows);
+
+        ConnectionGraphService service = new ConnectionGraphService(jdbcTemplate);
+        ReflectionTestUtils.setField(service, "maxResults", 500);
+        ReflectionTestUtils.setField(service, "maxFanout", 2_000);
+        ReflectionTestUtils.setField(service, "maxDegree", 3);
+        long startedAt = System.nanoTime();
+        service.rebuild();
+        System.out.printf("loaded %d users and %d connection rows in %d ms%n", adjacency.length, connectionRows,
+                (System.nanoTime() - startedAt) / 1_000_000);
+        assertTrue(service.isReady());
+        return service;
+    }
+
+    private static Set<Long> boxed(int[] ordinals) {
+        Set<Long> ids = new HashSet<>();
+        for (int ordinal : ordinals) {
+            ids.add(ordinal + 1L);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,132 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.dto.PersonSearchResult;
+import com.linksphere.backend.dto.ProfileCard;
+import com.linksphere.backend.models.Profile;
+import com.linksphere.backend.services.PeopleSearchService.Term;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PeopleSearchServiceTest {
+
+    @Test
+    void tokenizeKeepsPlusAndHashInsideWords() {
+        assertEquals(List.of("c++", "c#", "spring", "boot", "java17"), PeopleSearchService.tokenize("C++, C# / Spring-Boot java17"));
+        // Only after a letter or digit, so punctuation alone never becomes a token
+        assertEquals(List.of("net"), PeopleSearchService.tokenize("+ # .NET"));
+        assertTrue(PeopleSearchService.tokenize(null).isEmpty());
+        assertTrue(PeopleSearchService.tokenize("  --  ").isEmpty());
+    }
+
+    @Test
+    void wordsAreAndedWithinAnAlternative() {
+        assertEquals(List.of(List.of(term("kotlin"), term("spring"))), PeopleSearchService.parseQuery("Kotlin spring"));
+        assertEquals(List.of(List.of(term("kotlin"), term("spring"))), PeopleSearchService.parseQuery("kotlin AND spring"));
+        assertEquals(List.of(List.of(term("kotlin"), term("spring"))), PeopleSearchService.parseQuery("kotlin & spring"));
+    }
+
+    @Test
+    void orAndPipeSplitAlternatives() {
+        assertEquals(List.of(List.of(term("kotlin")), List.of(term("java"), term("spring"))),
+                PeopleSearchService.parseQuery("kotlin OR java spring"));
+        assertEquals(List.of(List.of(term("go")), List.of(term("rust"))), PeopleSearchService.parseQuery("go | rust"));
+        // Dangling or repeated operators do not create empty alternatives
+        assertEquals(List.of(List.of(term("go")), List.of(term("rust"))), PeopleSearchService.parseQuery("OR go OR OR rust |"));
+        // Operators are upper case; a lower-case "or" is searched as a word
+        assertEquals(List.of(List.of(term("go"), term("or"), term("rust"))), PeopleSearchService.parseQuery("go or rust"));
+    }
+
+    @Test
+    void trailingStarMakesTheLastTokenAPrefix() {
+        assertEquals(List.of(List.of(prefix("kot"))), PeopleSearchService.parseQuery("kot*"));
+        assertEquals(List.of(List.of(term("spring"), prefix("bo"))), PeopleSearchService.parseQuery("spring-bo*"));
+        assertEquals(List.of(List.of(prefix("jav")), List.of(term("kotlin"))), PeopleSearchService.parseQuery("Jav* OR kotlin"));
+        // A star on its own has no token to apply to
+        assertTrue(PeopleSearchService.parseQuery("*").isEmpty());
+    }
+
+    @Test
+    void emptyQueriesHaveNoAlternatives() {
+        assertTrue(PeopleSearchService.parseQuery(null).isEmpty());
+        assertTrue(PeopleSearchService.parseQuery("   ").isEmpty());
+        assertTrue(PeopleSearchService.parseQuery("OR | AND").isEmpty());
+    }
+
+    @Test
+    void termsAreCappedAcrossTheWholeQuery() {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            query.append(i % 10 == 9 ? " OR " : " ").append("skill").append(i);
+        }
+        int terms = PeopleSearchService.parseQuery(query.toString()).stream().mapToInt(List::size).sum();
+        assertEquals(16, terms);
+    }
+
+    @Test
+    void shortPrefixesExpandToEveryMatchingTermNotJustTheFirstAlphabetically() {
+        PeopleSearchService search = service();
+        // 200 distinct skills starting with "s", one profile each, then one sorting last of all
+        for (long userId = 1; userId <= 200; userId++) {
+            search.index(profile(userId, String.format("s%03d", userId)));
+        }
+        search.index(profile(201L, "szz"));
+        search.index(profile(202L, "tango"));
+
+        List<Long> matches = userIds(search.search(999L, "s*", 0, 1000));
+        assertEquals(201, matches.size());
+        assertTrue(matches.contains(201L));
+        assertEquals(List.of(201L), userIds(search.search(999L, "sz*", 0, 10)));
+    }
+
+    private static PeopleSearchService service() {
+        ConnectionGraphService graph = mock(ConnectionGraphService.class);
+        when(graph.nearDegrees(anyLong(), any())).thenAnswer(invocation -> new int[invocation.<long[]>getArgument(1).length]);
+        ProfileCardService cards = mock(ProfileCardService.class);
+        when(cards.getCardsInOrder(anyList())).thenAnswer(invocation -> {
+            List<ProfileCard> found = new ArrayList<>();
+            for (Long userId : invocation.<List<Long>>getArgument(0)) {
+                found.add(new ProfileCard(userId, "user" + userId, null, null));
+            }
+            return found;
+        });
+        PeopleSearchService search = new PeopleSearchService(mock(JdbcTemplate.class), graph, cards);
+        ReflectionTestUtils.setField(search, "maxResults", 1000);
+        ReflectionTestUtils.setField(search, "maxCandidates", 20_000);
+        ReflectionTestUtils.setField(search, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(search, "maxPageSize", 1000);
+        search.rebuild(); // an empty profiles table
+        assertTrue(search.isReady());
+        return search;
+    }
+
+    private static Profile profile(Long userId, String skills) {
+        Profile profile = new Profile();
+        profile.setUserId(userId);
+        profile.setSkills(skills);
+        return profile;
+    }
+
+    private static List<Long> userIds(List<PersonSearchResult> results) {
+        return results.stream().map(PersonSearchResult::getUserId).toList();
+    }
+
+    private static Term term(String text) {
+        return new Term(text, false);
+    }
+
+    private static Term prefix(String text) {
+        return new Term(text, true);
+    }
+}
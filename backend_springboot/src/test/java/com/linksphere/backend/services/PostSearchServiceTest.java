@@ -0,0 +1,112 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.models.Post;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class PostSearchServiceTest {
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Test
+    void tokenizeLowercasesAndSplitsOnPunctuation() {
+        assertEquals(List.of("spring", "boot", "3", "tips"), PostSearchService.tokenize("Spring-Boot 3: tips!"));
+        assertTrue(PostSearchService.tokenize(null).isEmpty());
+        assertTrue(PostSearchService.tokenize(" ... ").isEmpty());
+    }
+
+    @Test
+    void everyTokenMustMatchAndTheLastIsAPrefix() {
+        PostSearchService search = service(0.0);
+        search.index(post(1, "alice", "Spring Boot tips", NOW));
+        search.index(post(2, "dave", "Spring Cloud gateway", NOW));
+        search.index(post(3, "carol", "Booting a cloud server", NOW));
+
+        assertArrayEquals(new long[] { 1 }, search.search("spring bo", 0, 10));
+        assertArrayEquals(new long[] { 2 }, search.search("cloud spr", 0, 10));
+        // Only the last token is a prefix
+        assertArrayEquals(new long[0], search.search("boo cloud", 0, 10));
+        assertArrayEquals(new long[0], search.search("  ", 0, 10));
+    }
+
+    @Test
+    void usernameMatchesOutrankDescriptionMatchesAndNewerPostsBreakTies() {
+        PostSearchService search = service(1.0);
+        search.index(post(1, "bob", "learning kotlin", NOW));
+        search.index(post(2, "kotlin", "hello", NOW.minusDays(30)));
+        search.index(post(3, "carol", "more kotlin", NOW.minusDays(30)));
+
+        assertArrayEquals(new long[] { 2, 1, 3 }, search.search("kotlin", 0, 10));
+    }
+
+    @Test
+    void updatesReplaceTermsAndRemovedPostsDisappear() {
+        PostSearchService search = service(0.0);
+        search.index(post(1, "alice", "java streams", NOW));
+        search.index(post(1, "alice", "rust ownership", NOW));
+        search.index(post(2, "bob", "java records", NOW));
+
+        assertArrayEquals(new long[] { 2 }, search.search("java", 0, 10));
+        assertArrayEquals(new long[] { 1 }, search.search("rust", 0, 10));
+        search.remove(2L);
+        assertArrayEquals(new long[0], search.search("java", 0, 10));
+    }
+
+    @Test
+    void pagesThroughRankedResults() {
+        PostSearchService search = service(1.0);
+        for (int id = 1; id <= 5; id++) {
+            search.index(post(id, "user" + id, "daily update", NOW.minusHours(id)));
+        }
+
+        assertArrayEquals(new long[] { 1, 2 }, search.search("update", 0, 2));
+        assertArrayEquals(new long[] { 3, 4 }, search.search("update", 1, 2));
+        assertArrayEquals(new long[] { 5 }, search.search("update", 2, 2));
+        assertArrayEquals(new long[0], search.search("update", 3, 2));
+    }
+
+    @Test
+    void shortPrefixesExpandToEveryMatchingTermNotJustTheFirstAlphabetically() {
+        PostSearchService search = service(0.0);
+        // 200 distinct terms starting with "s", each in one post, then one sorting last of all
+        for (int id = 1; id <= 200; id++) {
+            search.index(post(id, "user", String.format("s%03d", id), NOW));
+        }
+        search.index(post(201, "user", "szz", NOW));
+        search.index(post(202, "user", "tango", NOW));
+
+        long[] matches = search.search("s", 0, 1000);
+        assertEquals(201, matches.length);
+        long[] sorted = matches.clone();
+        Arrays.sort(sorted);
+        assertEquals(1, sorted[0]);
+        assertEquals(201, sorted[200]);
+        assertArrayEquals(new long[] { 201 }, search.search("sz", 0, 10));
+    }
+
+    private static PostSearchService service(double recencyWeight) {
+        PostSearchService search = new PostSearchService(mock(JdbcTemplate.class));
+        ReflectionTestUtils.setField(search, "recencyHalfLifeHours", 72.0);
+        ReflectionTestUtils.setField(search, "recencyWeight", recencyWeight);
+        ReflectionTestUtils.setField(search, "maxResults", 1000);
+        return search;
+    }
+
+    private static Post post(long id, String username, String description, LocalDateTime createdAt) {
+        Post post = new Post();
+        post.setId(id);
+        post.setUsername(username);
+        post.setDescription(description);
+        post.setCreatedAt(createdAt);
+        return post;
+    }
+}
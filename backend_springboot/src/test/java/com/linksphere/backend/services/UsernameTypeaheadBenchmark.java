@@ -0,0 +1,105 @@
+package com.linksphere.backend.services;
+
+import com.linksphere.backend.Microbenchmark;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Typeahead lookups over 1M random usernames for a viewer with 500
+ * connections: warm (the viewer's connections already resolved) and cold
+ * (a new viewer on every call), plus users still in the side array.
+ *
+ * mvn -B test -Pbenchmark -Dtest=UsernameTypeaheadBenchmark
+ */
+@Tag("benchmark")
+class UsernameTypeaheadBenchmark {
+    private static final int USERS = 1_000_000;
+    private static final int CONNECTIONS = 500;
+    private static final int PENDING = 500;
+
+    @Test
+    void lookupAtOneMillionUsernames() {
+        Random random = new Random(42);
+        String[] usernames = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            usernames[i] = randomName(random);
+        }
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            int[] row = new int[1];
+            // A plain proxy rather than a mock, so the load time is not mostly Mockito
+            ResultSet rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getLong" -> (long) row[0] + 1;
+                        case "getString" -> usernames[row[0]];
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+            for (row[0] = 0; row[0] < USERS; row[0]++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        long[] connections = new long[CONNECTIONS];
+        for (int i = 0; i < CONNECTIONS; i++) {
+            connections[i] = 1 + random.nextInt(USERS);
+        }
+        ConnectionGraphService graph = mock(ConnectionGraphService.class);
+        when(graph.connectionIds(anyLong())).thenReturn(connections);
+
+        UsernameTypeaheadService typeahead = new UsernameTypeaheadService(jdbcTemplate, graph);
+        ReflectionTestUtils.setField(typeahead, "defaultLimit", 10);
+        ReflectionTestUtils.setField(typeahead, "maxLimit", 25);
+        ReflectionTestUtils.setField(typeahead, "mergeThreshold", 1024);
+        ReflectionTestUtils.setField(typeahead, "maxCachedViewers", 10_000);
+        ReflectionTestUtils.setField(typeahead, "connectionCacheTtlSeconds", 3600L);
+        long loadStartedAt = System.nanoTime();
+        typeahead.load();
+        System.out.printf("loaded %d usernames in %d ms%n", USERS, (System.nanoTime() - loadStartedAt) / 1_000_000);
+        assertTrue(typeahead.isReady());
+        for (int i = 0; i < PENDING; i++) {
+            typeahead.add((long) USERS + 1 + i, randomName(random));
+        }
+
+        // What a user types: one to three characters
+        String[] prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = usernames[random.nextInt(USERS)].substring(0, 1 + random.nextInt(3));
+        }
+        int[] next = new int[1];
+        Microbenchmark.nanosPerOp("warm lookup (connections cached)", 200_000,
+                () -> typeahead.lookup(1L, prefixes[next[0]++ & 1023], null));
+        AtomicLong viewer = new AtomicLong(1_000);
+        Microbenchmark.nanosPerOp("cold lookup (new viewer each call)", 20_000,
+                () -> typeahead.lookup(viewer.incrementAndGet(), prefixes[next[0]++ & 1023], null));
+
+        assertFalse(typeahead.lookup(1L, prefixes[0], null).isEmpty());
+    }
+
+    private static String randomName(Random random) {
+        char[] name = new char[6 + random.nextInt(7)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(name);
+    }
+}
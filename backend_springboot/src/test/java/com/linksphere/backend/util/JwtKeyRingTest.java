@@ -0,0 +1,57 @@
+package com.linksphere.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.Key;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtKeyRingTest {
+
+    private static String base64(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + 7);
+        }
+        return "base64:" + Base64.getEncoder().encodeToString(bytes);
+    }
+
+    @Test
+    void acceptsPrefixedBase64SecretsAndSizesTheAlgorithm() {
+        Key hs512 = JwtKeyRing.toKey("k", base64(64));
+        assertEquals("HmacSHA512", hs512.getAlgorithm());
+        assertEquals(64, hs512.getEncoded().length);
+        assertEquals("HmacSHA256", JwtKeyRing.toKey("k", base64(32)).getAlgorithm());
+    }
+
+    @Test
+    void usesTheDecodedBytesUnchanged() {
+        String encoded = base64(48);
+        byte[] expected = Base64.getDecoder().decode(encoded.substring("base64:".length()));
+        assertArrayEquals(expected, JwtKeyRing.toKey("k", encoded).getEncoded());
+    }
+
+    @Test
+    void rejectsPlaceholderSecrets() {
+        assertThrows(IllegalStateException.class, () -> JwtKeyRing.toKey("default", "your-secret-key"));
+        assertThrows(IllegalStateException.class, () -> JwtKeyRing.toKey("default", "changeme"));
+    }
+
+    @Test
+    void rejectsSecretsWithoutTheBase64Prefix() {
+        // Valid base64 of 64 bytes, but the encoding is never guessed
+        String unprefixed = base64(64).substring("base64:".length());
+        assertThrows(IllegalStateException.class, () -> JwtKeyRing.toKey("k", unprefixed));
+        assertThrows(IllegalStateException.class, () -> JwtKeyRing.toKey("k", "a-long-raw-utf8-passphrase-that-is-not-base64-at-all"));
+    }
+
+    @Test
+    void rejectsShortOrMalformedSecrets() {
+        assertThrows(IllegalStateException.class, () -> JwtKeyRing.toKey("k", base64(31)));
+        assertThrows(IllegalStateException.class, () -> JwtKeyRing.toKey("k", "base64:not*base64"));
+        assertThrows(IllegalStateException.class, () -> JwtKeyRing.toKey("k", ""));
+    }
+}
@@ -0,0 +1,65 @@
+package com.linksphere.backend.util;
+
+import com.linksphere.backend.Microbenchmark;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Per-request cost of JWT verification in JwtRequestFilter: the old path
+ * (three parses, each with a freshly built parser) against one parse with
+ * the shared parser and against a verified-token cache hit.
+ *
+ * mvn -B test -Pbenchmark -Dtest=JwtVerifyBenchmark
+ */
+@Tag("benchmark")
+class JwtVerifyBenchmark {
+    private static final int ITERATIONS = 20_000;
+    // Building a parser per call is slow enough that fewer calls give a stable figure
+    private static final int OLD_PATH_ITERATIONS = 3_000;
+
+    @Test
+    void verifyPerRequest() {
+        byte[] secret = new byte[64];
+        for (int i = 0; i < secret.length; i++) {
+            secret[i] = (byte) (i * 37 + 11);
+        }
+        JwtKeyRing keyRing = new JwtKeyRing();
+        ReflectionTestUtils.setField(keyRing, "secret", "base64:" + Base64.getEncoder().encodeToString(secret));
+        ReflectionTestUtils.setField(keyRing, "keys", "");
+        ReflectionTestUtils.setField(keyRing, "activeKeyId", "");
+        ReflectionTestUtils.setField(keyRing, "keysFile", "");
+        keyRing.load();
+
+        JwtUtil jwtUtil = new JwtUtil(keyRing);
+        ReflectionTestUtils.setField(jwtUtil, "expirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", 10_000);
+        String token = jwtUtil.generateToken("user@example.com", "USER");
+        Key key = keyRing.getActiveKey();
+        JwtParser sharedParser = Jwts.parserBuilder().setSigningKey(key).build();
+
+        double threeParses = Microbenchmark.nanosPerOp("three parses, new parser each (old filter)", OLD_PATH_ITERATIONS, () -> {
+            Claims claims = null;
+            for (int i = 0; i < 3; i++) {
+                claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+            }
+            return claims;
+        });
+        double oneParse = Microbenchmark.nanosPerOp("one parse, shared parser (cache miss)", ITERATIONS,
+                () -> sharedParser.parseClaimsJws(token).getBody());
+        double cacheHit = Microbenchmark.nanosPerOp("verify() cache hit", ITERATIONS, () -> jwtUtil.verify(token));
+        System.out.printf("cache hit is %.1fx faster than the old filter path, one parse %.1fx%n",
+                threeParses / cacheHit, threeParses / oneParse);
+
+        assertEquals("user@example.com", jwtUtil.verify(token).getSubject());
+        keyRing.shutdown();
+    }
+}
@@ -0,0 +1,36 @@
+package com.linksphere.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrefixExpansionTest {
+
+    @Test
+    void usesEveryTermWithinTheBudget() {
+        List<int[]> postings = List.of(new int[3], new int[1], new int[5], new int[2]);
+        assertEquals(postings, PrefixExpansion.select(postings, p -> p.length, 11));
+        assertEquals(postings, PrefixExpansion.select(postings, p -> p.length, 100));
+    }
+
+    @Test
+    void overTheBudgetTheRarestTermsAreDropped() {
+        int[] a = new int[3];
+        int[] b = new int[1];
+        int[] c = new int[5];
+        int[] d = new int[2];
+        int[] e = new int[1];
+        // 5 + 3 fill 8 of 9; 2 no longer fits, but a 1 still does
+        assertEquals(List.of(c, a, b), PrefixExpansion.select(List.of(a, b, c, d, e), p -> p.length, 9));
+    }
+
+    @Test
+    void keepsTheLargestTermEvenWhenItAloneExceedsTheBudget() {
+        int[] big = new int[50];
+        int[] small = new int[1];
+        assertEquals(List.of(big), PrefixExpansion.select(List.of(small, big), p -> p.length, 10));
+        assertEquals(List.of(), PrefixExpansion.select(List.<int[]>of(), p -> p.length, 10));
+    }
+}
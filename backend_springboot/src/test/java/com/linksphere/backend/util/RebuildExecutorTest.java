@@ -0,0 +1,51 @@
+package com.linksphere.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RebuildExecutorTest {
+
+    @Test
+    void failedAttemptsAreRetriedUntilOneSucceeds() throws Exception {
+        RebuildExecutor executor = new RebuildExecutor("test-rebuild", 10, 40);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            executor.retryUntilDone(() -> {
+                if (attempts.incrementAndGet() < 4) {
+                    return false;
+                }
+                done.countDown();
+                return true;
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            // Nothing is scheduled after the success
+            Thread.sleep(200);
+            assertEquals(4, attempts.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shutdownCancelsAPendingRetry() throws Exception {
+        RebuildExecutor executor = new RebuildExecutor("test-rebuild", 100, 100);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch first = new CountDownLatch(1);
+        executor.retryUntilDone(() -> {
+            attempts.incrementAndGet();
+            first.countDown();
+            return false;
+        });
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        Thread.sleep(300);
+        assertEquals(1, attempts.get());
+    }
+}
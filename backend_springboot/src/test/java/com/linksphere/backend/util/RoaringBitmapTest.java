@@ -0,0 +1,188 @@
+package com.linksphere.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoaringBitmapTest {
+    // Containers switch between a sorted array and a bitmap at this cardinality
+    private static final int ARRAY_MAX = 4096;
+
+    @Test
+    void growsAndShrinksAcrossTheArrayBitmapBoundary() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        BitSet expected = new BitSet();
+        // Every third value of one container, so 4096 values still fit in it
+        for (int i = 0; i < ARRAY_MAX + 200; i++) {
+            int value = 65_536 + i * 3;
+            bitmap.add(value);
+            expected.set(value);
+            if (i >= ARRAY_MAX - 2 && i <= ARRAY_MAX + 2) {
+                assertMatches(expected, bitmap);
+            }
+        }
+        assertMatches(expected, bitmap);
+
+        bitmap.add(65_536 + 3); // already present
+        assertMatches(expected, bitmap);
+
+        for (int i = ARRAY_MAX + 199; i >= 0; i--) {
+            int value = 65_536 + i * 3;
+            bitmap.remove(value);
+            expected.clear(value);
+            if (i >= ARRAY_MAX - 2 && i <= ARRAY_MAX + 2 || i < 3) {
+                assertMatches(expected, bitmap);
+            }
+        }
+        assertTrue(bitmap.isEmpty());
+        assertFalse(bitmap.contains(65_536));
+        bitmap.remove(65_536); // absent container
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    void randomAddsAndRemovesMatchBitSet() {
+        Random random = new Random(7);
+        RoaringBitmap bitmap = new RoaringBitmap();
+        BitSet expected = new BitSet();
+        for (int step = 0; step < 60_000; step++) {
+            // Mostly one dense container so it crosses the boundary back and forth
+            int value = random.nextInt(4) == 0 ? random.nextInt(400_000) : 131_072 + random.nextInt(9_000);
+            if (random.nextInt(3) == 0) {
+                bitmap.remove(value);
+                expected.clear(value);
+            } else {
+                bitmap.add(value);
+                expected.set(value);
+            }
+            if (step % 5_000 == 0) {
+                assertMatches(expected, bitmap);
+            }
+        }
+        assertMatches(expected, bitmap);
+    }
+
+    @Test
+    void andOrMatchBitSetForEveryContainerPairing() {
+        Random random = new Random(11);
+        // Per container: sparse (array), just under and just over the boundary, and dense (bitmap)
+        int[] densities = { 50, ARRAY_MAX - 10, ARRAY_MAX + 10, 30_000 };
+        for (int a : densities) {
+            for (int b : densities) {
+                Sample left = randomBitmap(random, a);
+                Sample right = randomBitmap(random, b);
+                RoaringBitmap leftBitmap = left.bitmap();
+                RoaringBitmap rightBitmap = right.bitmap();
+                BitSet leftSet = left.set();
+                BitSet rightSet = right.set();
+
+                BitSet and = (BitSet) leftSet.clone();
+                and.and(rightSet);
+                assertMatches(and, leftBitmap.and(rightBitmap));
+                assertMatches(and, rightBitmap.and(leftBitmap));
+
+                BitSet or = (BitSet) leftSet.clone();
+                or.or(rightSet);
+                assertMatches(or, leftBitmap.or(rightBitmap));
+                assertMatches(or, rightBitmap.or(leftBitmap));
+
+                // Results are new bitmaps; the operands stay as they were
+                assertMatches(leftSet, leftBitmap);
+                assertMatches(rightSet, rightBitmap);
+            }
+        }
+    }
+
+    @Test
+    void orOfTwoArraysCanBecomeABitmapAndAndOfBitmapsAnArray() {
+        RoaringBitmap evens = new RoaringBitmap();
+        RoaringBitmap odds = new RoaringBitmap();
+        BitSet evensSet = new BitSet();
+        BitSet oddsSet = new BitSet();
+        for (int i = 0; i < 3_000; i++) {
+            evens.add(i * 2);
+            evensSet.set(i * 2);
+            odds.add(i * 2 + 1);
+            oddsSet.set(i * 2 + 1);
+        }
+        BitSet union = (BitSet) evensSet.clone();
+        union.or(oddsSet);
+        RoaringBitmap all = evens.or(odds); // 6000 values, past the array limit
+        assertMatches(union, all);
+
+        RoaringBitmap dense = new RoaringBitmap();
+        BitSet denseSet = new BitSet();
+        for (int i = 0; i < 10_000; i += 3) {
+            dense.add(i);
+            denseSet.set(i);
+        }
+        BitSet intersection = (BitSet) union.clone();
+        intersection.and(denseSet);
+        assertMatches(intersection, all.and(dense)); // 2000 values, back under the limit
+        assertTrue(all.and(new RoaringBitmap()).isEmpty());
+    }
+
+    @Test
+    void iteratesInAscendingOrderAcrossContainers() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        int[] values = { 1_000_000, 5, 65_535, 65_536, 0, 200_000, 131_071 };
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEach(visited::add);
+        assertEquals(List.of(0, 5, 65_535, 65_536, 131_071, 200_000, 1_000_000), visited);
+        assertArrayEquals(new int[] { 0, 5, 65_535, 65_536, 131_071, 200_000, 1_000_000 }, bitmap.toArray());
+    }
+
+    @Test
+    void orAllMatchesBitSetForFewAndManyInputs() {
+        Random random = new Random(17);
+        // Below and above the count where orAll stops OR-ing pairwise
+        for (int count : new int[] { 0, 1, 3, 8, 9, 200 }) {
+            List<RoaringBitmap> bitmaps = new ArrayList<>();
+            BitSet expected = new BitSet();
+            for (int b = 0; b < count; b++) {
+                Sample sample = randomBitmap(random, b % 50 == 0 ? 5_000 : 1 + random.nextInt(40));
+                bitmaps.add(sample.bitmap());
+                expected.or(sample.set());
+            }
+            assertMatches(expected, RoaringBitmap.orAll(bitmaps));
+        }
+    }
+
+    // About perContainer values in each of three containers, held both ways
+    private static Sample randomBitmap(Random random, int perContainer) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        BitSet set = new BitSet();
+        for (int container : new int[] { 0, 1, 3 }) {
+            for (int i = 0; i < perContainer; i++) {
+                int value = container * 65_536 + random.nextInt(65_536);
+                bitmap.add(value);
+                set.set(value);
+            }
+        }
+        return new Sample(bitmap, set);
+    }
+
+    private static void assertMatches(BitSet expected, RoaringBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+        for (int value = expected.nextSetBit(0); value >= 0; value = expected.nextSetBit(value + 1)) {
+            assertTrue(actual.contains(value));
+            assertFalse(actual.contains(value + 65_536 * 8)); // a container that is never used
+        }
+    }
+
+    private record Sample(RoaringBitmap bitmap, BitSet set) {
+    }
+}
@@ -7,6 +7,10 @@ class ApiService {
   static const String baseUrl = 'http://192.168.137.1:8080/api';
   final String? jwtToken;
 
+  // Last profile response and its ETag; a refresh that gets 304 reuses the body
+  static String? _profileEtag;
+  static String? _profileBody;
+
   ApiService({this.jwtToken});
 
   Future<Map<String, dynamic>> login(String email, String password) async {
@@ -87,11 +91,17 @@ class ApiService {
       headers: {
         'Content-Type': 'application/json',
         'Authorization': 'Bearer $token',
+        if (_profileEtag != null && _profileBody != null)
+          'If-None-Match': _profileEtag!,
       },
     );
 
-    if (response.statusCode == 200) {
-      var profile = jsonDecode(response.body);
+    if (response.statusCode == 200 || response.statusCode == 304) {
+      if (response.statusCode == 200) {
+        _profileEtag = response.headers['etag'];
+        _profileBody = response.body;
+      }
+      var profile = jsonDecode(_profileBody!);
       // Decode education, experience, location, and contactInfo from JSON strings to lists/maps
       profile['education'] =
           profile['education'] != null && profile['education'].isNotEmpty
@@ -294,6 +304,27 @@ class ApiService {
     }
   }
 
+  // Username suggestions for the search box, the user's connections first
+  Future<List<Map<String, dynamic>>> typeaheadUsers(String prefix) async {
+    final prefs = await SharedPreferences.getInstance();
+    final token = prefs.getString('jwt_token');
+    if (token == null) throw Exception('No token found');
+
+    final response = await http.get(
+      Uri.parse('$baseUrl/search/users/typeahead?prefix=${Uri.encodeQueryComponent(prefix)}'),
+      headers: {
+        'Content-Type': 'application/json',
+        'Authorization': 'Bearer $token',
+      },
+    );
+
+    if (response.statusCode == 200) {
+      return List<Map<String, dynamic>>.from(jsonDecode(response.body));
+    } else {
+      throw Exception('Failed to load user suggestions: ${response.body}');
+    }
+  }
+
   Future<void> likePost(int postId) async {
     final prefs = await SharedPreferences.getInstance();
     final token = prefs.getString('jwt_token');
@@ -341,7 +372,8 @@ class ApiService {
     );
 
     if (response.statusCode == 200) {
-      List<dynamic> data = jsonDecode(response.body);
+      Map<String, dynamic> page = jsonDecode(response.body);
+      List<dynamic> data = page['items'];
       return data.cast<Map<String, dynamic>>();
     } else {
       throw Exception('Failed to load comments: ${response.body}');
@@ -514,7 +546,8 @@ class ApiService {
       );
 
       if (response.statusCode == 200) {
-        return List<Map<String, dynamic>>.from(jsonDecode(response.body));
+        Map<String, dynamic> page = jsonDecode(response.body);
+        return List<Map<String, dynamic>>.from(page['items']);
       } else {
         throw Exception('Failed to load connections');
       }